@@ -5,6 +5,7 @@ import ar.edu.itba.ss.method.neigbour.CellIndexMethod;
 import ar.edu.itba.ss.model.ImmutableParticle;
 import ar.edu.itba.ss.model.Neighbour;
 import ar.edu.itba.ss.model.Particle;
+import ar.edu.itba.ss.model.Point2D;
 import ar.edu.itba.ss.model.Points;
 import java.io.IOException;
 import java.util.LinkedList;
@@ -14,7 +15,6 @@ import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ThreadLocalRandom;
-import javafx.geometry.Point2D;
 
 public class OffLatticeAutomaton implements Callable<List<Particle>> {
 
@@ -2,10 +2,10 @@ package ar.edu.itba.ss.generator;
 
 import ar.edu.itba.ss.model.ImmutableParticle;
 import ar.edu.itba.ss.model.Particle;
+import ar.edu.itba.ss.model.Point2D;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.concurrent.ThreadLocalRandom;
-import javafx.geometry.Point2D;
 
 public abstract class RandomParticleGenerator {
 
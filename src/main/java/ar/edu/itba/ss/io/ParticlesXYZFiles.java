@@ -2,6 +2,7 @@ package ar.edu.itba.ss.io;
 
 import ar.edu.itba.ss.model.ImmutableParticle;
 import ar.edu.itba.ss.model.Particle;
+import ar.edu.itba.ss.model.Point2D;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.IOException;
@@ -12,7 +13,6 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
-import javafx.geometry.Point2D;
 
 public class ParticlesXYZFiles {
 
@@ -3,6 +3,7 @@ package ar.edu.itba.ss.io.writer;
 import ar.edu.itba.ss.model.ImmutableParticle;
 import ar.edu.itba.ss.model.Neighbour;
 import ar.edu.itba.ss.model.Particle;
+import ar.edu.itba.ss.model.Point2D;
 import java.io.IOException;
 import java.util.Collection;
 import java.util.Collections;
@@ -12,7 +13,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.function.BiFunction;
-import javafx.geometry.Point2D;
 
 public class BottomGapBoxParticleWriter extends AppendFileParticlesWriter {
 
@@ -3,14 +3,15 @@ package ar.edu.itba.ss.io.writer;
 import static java.lang.Math.pow;
 
 import ar.edu.itba.ss.model.Neighbour;
+import ar.edu.itba.ss.model.NeighbourList;
 import ar.edu.itba.ss.model.Particle;
+import ar.edu.itba.ss.model.Point2D;
 import java.io.IOException;
 import java.util.Collection;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import javafx.geometry.Point2D;
 
 public class EnergyWriter implements ParticlesWriter {
 
@@ -41,6 +42,25 @@ public class EnergyWriter implements ParticlesWriter {
     points.add(new Point2D(time, kinetic + potential));
   }
 
+  @Override
+  public void write(double time, List<Particle> particles, NeighbourList neighbours)
+      throws IOException {
+    double energy = 0;
+
+    for (int i = 0; i < particles.size(); i++) {
+      energy += kineticEnergy(particles.get(i));
+
+      for (int k = neighbours.start(i); k < neighbours.end(i); k++) {
+        energy += potentialEnergy(neighbours.distance(k));
+        if (particles.get(neighbours.neighbour(k)).id() < 0) {
+          energy += potentialEnergy(neighbours.distance(k));
+        }
+      }
+    }
+
+    points.add(new Point2D(time, energy));
+  }
+
   private double kineticEnergy(final Particle particle) {
     return 0.5 * particle.mass()
         * particle.velocity().magnitude() * particle.velocity().magnitude();
@@ -50,17 +70,19 @@ public class EnergyWriter implements ParticlesWriter {
     double potential = 0;
 
     for (Neighbour neighbour : neighbours) {
-      potential += epsilon *
-          (pow(rm / neighbour.getDistance(), 12) - 2.0 * pow(rm / neighbour.getDistance(), 6));
+      potential += potentialEnergy(neighbour.getDistance());
       if (neighbour.getNeighbourParticle().id() < 0) {
-        potential += epsilon *
-            (pow(rm / neighbour.getDistance(), 12) - 2.0 * pow(rm / neighbour.getDistance(), 6));
+        potential += potentialEnergy(neighbour.getDistance());
       }
     }
 
     return potential;
   }
 
+  private double potentialEnergy(final double distance) {
+    return epsilon * (pow(rm / distance, 12) - 2.0 * pow(rm / distance, 6));
+  }
+
   public List<Point2D> getPoints() {
     final List<Point2D> oldPoints = points;
     points = new LinkedList<>();
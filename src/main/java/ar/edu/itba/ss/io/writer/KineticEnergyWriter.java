@@ -1,11 +1,11 @@
 package ar.edu.itba.ss.io.writer;
 
 import ar.edu.itba.ss.model.Particle;
+import ar.edu.itba.ss.model.Point2D;
 import java.io.IOException;
 import java.util.Collection;
 import java.util.LinkedList;
 import java.util.List;
-import javafx.geometry.Point2D;
 
 public class KineticEnergyWriter implements ParticlesWriter {
 
@@ -1,9 +1,13 @@
 package ar.edu.itba.ss.io.writer;
 
+import ar.edu.itba.ss.model.Collision;
 import ar.edu.itba.ss.model.Neighbour;
+import ar.edu.itba.ss.model.NeighbourList;
 import ar.edu.itba.ss.model.Particle;
+import ar.edu.itba.ss.model.ParticleStore;
 import java.io.IOException;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -22,6 +26,13 @@ public class MultiWriter implements ParticlesWriter {
     }
   }
 
+  @Override
+  public void write(final double time, final Collision collision) throws IOException {
+    for (final ParticlesWriter writer : writers) {
+      writer.write(time, collision);
+    }
+  }
+
   @Override
   public void write(final double time, final Map<Particle, Set<Neighbour>> neighbours)
       throws IOException {
@@ -29,4 +40,19 @@ public class MultiWriter implements ParticlesWriter {
       writer.write(time, neighbours);
     }
   }
+
+  @Override
+  public void write(final double time, final List<Particle> particles,
+      final NeighbourList neighbours) throws IOException {
+    for (final ParticlesWriter writer : writers) {
+      writer.write(time, particles, neighbours);
+    }
+  }
+
+  @Override
+  public void write(final double time, final ParticleStore particles) throws IOException {
+    for (final ParticlesWriter writer : writers) {
+      writer.write(time, particles);
+    }
+  }
 }
@@ -1,6 +1,7 @@
 package ar.edu.itba.ss.io.writer;
 
 import ar.edu.itba.ss.model.Particle;
+import ar.edu.itba.ss.model.Point2D;
 import ar.edu.itba.ss.model.Scatter2DChart;
 import java.io.IOException;
 import java.util.ArrayList;
@@ -8,8 +9,6 @@ import java.util.Collection;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.stream.Collectors;
-import javafx.application.Platform;
-import javafx.geometry.Point2D;
 
 public class ParticlesInFirstBoxWriter implements ParticlesWriter {
 
@@ -40,7 +39,7 @@ public class ParticlesInFirstBoxWriter implements ParticlesWriter {
   }
 
   public void addSeries(String name) {
-    Platform.runLater(() -> Scatter2DChart.addSeries(name, points));
+    Scatter2DChart.addSeries(name, points);
     try {
       Thread.sleep(4000);
     } catch (InterruptedException e) {
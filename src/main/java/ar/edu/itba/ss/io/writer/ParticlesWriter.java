@@ -2,9 +2,12 @@ package ar.edu.itba.ss.io.writer;
 
 import ar.edu.itba.ss.model.Collision;
 import ar.edu.itba.ss.model.Neighbour;
+import ar.edu.itba.ss.model.NeighbourList;
 import ar.edu.itba.ss.model.Particle;
+import ar.edu.itba.ss.model.ParticleStore;
 import java.io.IOException;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -18,8 +21,21 @@ public interface ParticlesWriter {
     write(time, particles);
   }
 
+  // Only the particles of the collision, from simulators that don't keep the rest up to date
+  default void write(final double time, final Collision collision) throws IOException {
+  }
+
   default void write(final double time, final Map<Particle, Set<Neighbour>> neighbours)
       throws IOException {
     write(time, neighbours.keySet());
   }
+
+  default void write(final double time, final List<Particle> particles,
+      final NeighbourList neighbours) throws IOException {
+    write(time, particles);
+  }
+
+  default void write(final double time, final ParticleStore particles) throws IOException {
+    write(time, particles.particles());
+  }
 }
@@ -0,0 +1,14 @@
+package ar.edu.itba.ss.method.force;
+
+import ar.edu.itba.ss.model.ParticleStore;
+
+public interface BoundaryForce {
+
+  BoundaryForce NONE = (particles, slot, x, y, vx, vy, force) -> {
+  };
+
+  // Adds the force of walls or external fields on the particle in the given slot, when it is at
+  // (x, y) moving at (vx, vy), to force[0] and force[1]
+  void apply(final ParticleStore particles, final int slot, final double x, final double y,
+      final double vx, final double vy, final double[] force);
+}
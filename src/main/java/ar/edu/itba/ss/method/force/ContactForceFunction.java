@@ -1,12 +1,18 @@
 package ar.edu.itba.ss.method.force;
 
 import ar.edu.itba.ss.model.Neighbour;
+import ar.edu.itba.ss.model.NeighbourList;
+import ar.edu.itba.ss.model.NeighbourPairs;
 import ar.edu.itba.ss.model.Particle;
+import ar.edu.itba.ss.model.ParticleStore;
+import ar.edu.itba.ss.model.Point2D;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Set;
 import java.util.function.BiFunction;
-import javafx.geometry.Point2D;
 
-public class ContactForceFunction implements BiFunction<Particle, Set<Neighbour>, Point2D> {
+public class ContactForceFunction implements BiFunction<Particle, Set<Neighbour>, Point2D>,
+    IndexedForceFunction, ForceKernel {
 
   //TODO: gravity should be here?
   private static final double GRAVITY = 9.80665;
@@ -21,51 +27,142 @@ public class ContactForceFunction implements BiFunction<Particle, Set<Neighbour>
     this.isGravity = isGravity;
   }
 
+  public boolean isGravity() {
+    return isGravity;
+  }
+
   @Override
   public Point2D apply(Particle particle, Set<Neighbour> neighbours) {
-    double totalForceX = 0;
-    double totalForceY = 0;
+    final double[] totalForce = new double[2];
 
     for (Neighbour neighbour : neighbours) {
-      final double normalForce = calculateNormalForce(particle, neighbour);
-      final double tangentialForce = calculateTangentialForce(particle, neighbour);
+      addContactForce(particle, neighbour.getNeighbourParticle(), totalForce);
+    }
+
+    return totalForce(particle, totalForce);
+  }
+
+  public Point2D apply(int index, List<Particle> particles, NeighbourList neighbours) {
+    final Particle particle = particles.get(index);
+    final double[] totalForce = new double[2];
+
+    for (int k = neighbours.start(index); k < neighbours.end(index); k++) {
+      addContactForce(particle, particles.get(neighbours.neighbour(k)), totalForce);
+    }
+
+    return totalForce(particle, totalForce);
+  }
+
+  @Override
+  public void apply(ParticleStore particles, NeighbourList neighbours, int slot, double x,
+      double y, double vx, double vy, double[] force) {
+    final double[] positionsX = particles.getX();
+    final double[] positionsY = particles.getY();
+    final double[] velocitiesX = particles.getVx();
+    final double[] velocitiesY = particles.getVy();
+    final double[] radii = particles.getRadius();
+    force[0] = 0;
+    force[1] = 0;
+
+    for (int k = neighbours.start(slot); k < neighbours.end(slot); k++) {
+      final int other = neighbours.neighbour(k);
+      addContactForce(x, y, vx, vy, radii[slot], positionsX[other], positionsY[other],
+          velocitiesX[other], velocitiesY[other], radii[other], force);
+    }
 
-      final Point2D distanceUnitVector = neighbour.getNeighbourParticle().position()
-          .subtract(particle.position()).normalize();
+    if (isGravity) {
+      force[1] -= GRAVITY * particles.getMass()[slot];
+    }
+  }
+
+  @Override
+  public void apply(ParticleStore particles, NeighbourPairs pairs, double[] forceX,
+      double[] forceY) {
+    final int n = particles.size();
+    final double[] positionsX = particles.getX();
+    final double[] positionsY = particles.getY();
+    final double[] velocitiesX = particles.getVx();
+    final double[] velocitiesY = particles.getVy();
+    final double[] radii = particles.getRadius();
+    Arrays.fill(forceX, 0, n, 0);
+    Arrays.fill(forceY, 0, n, 0);
+
+    for (int pair = 0; pair < pairs.size(); pair++) {
+      final int first = pairs.first(pair);
+      final int second = pairs.second(pair);
+      final double dx = positionsX[second] - positionsX[first];
+      final double dy = positionsY[second] - positionsY[first];
+      final double distance = Point2D.magnitude(dx, dy);
+      final double psi = radii[first] + radii[second] - distance;
+
+      // Same law as addContactForce, written straight into both particles. The force is
+      // antisymmetric: the normal and the tangent both flip with the pair.
+      final double normalX = distance == 0 ? 0 : dx / distance;
+      final double normalY = distance == 0 ? 0 : dy / distance;
+      final double relativeVelocity = Point2D.dotProduct(
+          velocitiesX[first] - velocitiesX[second], velocitiesY[first] - velocitiesY[second],
+          -normalY, normalX);
 
-      final double forceX =
-          normalForce * distanceUnitVector.getX() + tangentialForce * -distanceUnitVector.getY();
-      final double forceY =
-          normalForce * distanceUnitVector.getY() + tangentialForce * distanceUnitVector.getX();
+      final double normalForce = -kn * psi;
+      final double tangentialForce = -kt * psi * relativeVelocity;
+      final double pairForceX = normalForce * normalX + tangentialForce * -normalY;
+      final double pairForceY = normalForce * normalY + tangentialForce * normalX;
 
-      totalForceX += forceX;
-      totalForceY += forceY;
+      forceX[first] += pairForceX;
+      forceY[first] += pairForceY;
+      forceX[second] -= pairForceX;
+      forceY[second] -= pairForceY;
     }
 
     if (isGravity) {
-      totalForceY -= GRAVITY * particle.mass();
+      final double[] masses = particles.getMass();
+      for (int slot = 0; slot < n; slot++) {
+        forceY[slot] -= GRAVITY * masses[slot];
+      }
     }
+  }
 
-    return new Point2D(totalForceX, totalForceY);
+  // Contact with a fixed point, such as the closest point of a wall, added to force[0] and
+  // force[1]. The point works as a particle with no radius that does not move.
+  public void addPointForce(double x, double y, double vx, double vy, double radius,
+      double pointX, double pointY, double[] force) {
+    addContactForce(x, y, vx, vy, radius, pointX, pointY, 0, 0, 0, force);
   }
 
-  private double calculateTangentialForce(Particle particle, Neighbour neighbour) {
-    final Point2D normalVersor = neighbour.getNeighbourParticle().position()
-        .subtract(particle.position())
-        .normalize();
-    final Point2D tangentialVersor = new Point2D(-normalVersor.getY(), normalVersor.getX());
-    final double relativeVelocity = particle.velocity()
-        .subtract(neighbour.getNeighbourParticle().velocity())
-        .dotProduct(tangentialVersor);
-    return -kt * calculatePsi(particle, neighbour) * relativeVelocity;
+  private void addContactForce(Particle particle, Particle neighbour, double[] totalForce) {
+    addContactForce(particle.position().getX(), particle.position().getY(),
+        particle.velocity().getX(), particle.velocity().getY(), particle.radius(),
+        neighbour.position().getX(), neighbour.position().getY(),
+        neighbour.velocity().getX(), neighbour.velocity().getY(), neighbour.radius(),
+        totalForce);
   }
 
-  private double calculateNormalForce(Particle particle, Neighbour neighbour) {
-    return -kn * calculatePsi(particle, neighbour);
+  private void addContactForce(double x, double y, double vx, double vy, double radius,
+      double neighbourX, double neighbourY, double neighbourVx, double neighbourVy,
+      double neighbourRadius, double[] totalForce) {
+    final double dx = neighbourX - x;
+    final double dy = neighbourY - y;
+    final double distance = Point2D.magnitude(dx, dy);
+    final double psi = radius + neighbourRadius - distance;
+
+    // Unit vector from the particle to its neighbour and its tangent
+    final double normalX = distance == 0 ? 0 : dx / distance;
+    final double normalY = distance == 0 ? 0 : dy / distance;
+    final double relativeVelocity = Point2D.dotProduct(vx - neighbourVx, vy - neighbourVy,
+        -normalY, normalX);
+
+    final double normalForce = -kn * psi;
+    final double tangentialForce = -kt * psi * relativeVelocity;
+
+    totalForce[0] += normalForce * normalX + tangentialForce * -normalY;
+    totalForce[1] += normalForce * normalY + tangentialForce * normalX;
   }
 
-  private double calculatePsi(Particle particle, Neighbour neighbour) {
-    return particle.radius() + neighbour.getNeighbourParticle().radius()
-        - particle.position().subtract(neighbour.getNeighbourParticle().position()).magnitude();
+  private Point2D totalForce(Particle particle, double[] totalForce) {
+    if (isGravity) {
+      totalForce[1] -= GRAVITY * particle.mass();
+    }
+
+    return new Point2D(totalForce[0], totalForce[1]);
   }
 }
@@ -0,0 +1,12 @@
+package ar.edu.itba.ss.method.force;
+
+import ar.edu.itba.ss.model.NeighbourPairs;
+import ar.edu.itba.ss.model.ParticleStore;
+
+public interface ForceKernel {
+
+  // Total force on every particle of the store. Each pair is evaluated once and its force is
+  // added to both particles with opposite signs, so pairs must not be listed in both orders.
+  void apply(final ParticleStore particles, final NeighbourPairs pairs, final double[] forceX,
+      final double[] forceY);
+}
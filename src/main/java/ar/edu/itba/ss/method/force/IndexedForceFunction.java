@@ -0,0 +1,12 @@
+package ar.edu.itba.ss.method.force;
+
+import ar.edu.itba.ss.model.NeighbourList;
+import ar.edu.itba.ss.model.ParticleStore;
+
+public interface IndexedForceFunction {
+
+  // Force on the particle in the given slot when it is at (x, y) moving at (vx, vy), against its
+  // neighbours as they are in the store. The result is written into force[0] and force[1].
+  void apply(final ParticleStore particles, final NeighbourList neighbours, final int slot,
+      final double x, final double y, final double vx, final double vy, final double[] force);
+}
@@ -3,12 +3,18 @@ package ar.edu.itba.ss.method.force;
 import static java.lang.Math.pow;
 
 import ar.edu.itba.ss.model.Neighbour;
+import ar.edu.itba.ss.model.NeighbourList;
+import ar.edu.itba.ss.model.NeighbourPairs;
 import ar.edu.itba.ss.model.Particle;
+import ar.edu.itba.ss.model.ParticleStore;
+import ar.edu.itba.ss.model.Point2D;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Set;
 import java.util.function.BiFunction;
-import javafx.geometry.Point2D;
 
-public class LennardJonesForceFunction implements BiFunction<Particle, Set<Neighbour>, Point2D> {
+public class LennardJonesForceFunction implements BiFunction<Particle, Set<Neighbour>, Point2D>,
+    IndexedForceFunction, ForceKernel {
 
   private final double epsilon;
   private final double rm;
@@ -30,12 +36,89 @@ public class LennardJonesForceFunction implements BiFunction<Particle, Set<Neigh
 
     for (final Neighbour neighbour : neighbours) {
       final double magnitude = forceMagnitude(epsilon, rm, neighbour.getDistance());
-      final Point2D distanceVector = particle.position()
-          .subtract(neighbour.getNeighbourParticle().position());
-      totalForceX += magnitude * (distanceVector.getX()) / distanceVector.magnitude();
-      totalForceY += magnitude * (distanceVector.getY()) / distanceVector.magnitude();
+      final Point2D neighbourPosition = neighbour.getNeighbourParticle().position();
+      final double dx = particle.position().getX() - neighbourPosition.getX();
+      final double dy = particle.position().getY() - neighbourPosition.getY();
+      final double distance = Point2D.magnitude(dx, dy);
+      totalForceX += magnitude * dx / distance;
+      totalForceY += magnitude * dy / distance;
     }
 
     return new Point2D(totalForceX, totalForceY);
   }
+
+  public Point2D apply(final int index, final List<Particle> particles,
+      final NeighbourList neighbours) {
+
+    final Particle particle = particles.get(index);
+    double totalForceX = 0;
+    double totalForceY = 0;
+
+    for (int k = neighbours.start(index); k < neighbours.end(index); k++) {
+      final double magnitude = forceMagnitude(epsilon, rm, neighbours.distance(k));
+      final Point2D neighbourPosition = particles.get(neighbours.neighbour(k)).position();
+      final double dx = particle.position().getX() - neighbourPosition.getX();
+      final double dy = particle.position().getY() - neighbourPosition.getY();
+      final double distance = Point2D.magnitude(dx, dy);
+      totalForceX += magnitude * dx / distance;
+      totalForceY += magnitude * dy / distance;
+    }
+
+    return new Point2D(totalForceX, totalForceY);
+  }
+
+  @Override
+  public void apply(final ParticleStore particles, final NeighbourList neighbours, final int slot,
+      final double x, final double y, final double vx, final double vy, final double[] force) {
+
+    final double[] positionsX = particles.getX();
+    final double[] positionsY = particles.getY();
+    force[0] = 0;
+    force[1] = 0;
+
+    for (int k = neighbours.start(slot); k < neighbours.end(slot); k++) {
+      final double magnitude = forceMagnitude(epsilon, rm, neighbours.distance(k));
+      final double dx = x - positionsX[neighbours.neighbour(k)];
+      final double dy = y - positionsY[neighbours.neighbour(k)];
+      final double distance = Point2D.magnitude(dx, dy);
+      force[0] += magnitude * dx / distance;
+      force[1] += magnitude * dy / distance;
+    }
+  }
+
+  @Override
+  public void apply(final ParticleStore particles, final NeighbourPairs pairs,
+      final double[] forceX, final double[] forceY) {
+
+    final double[] positionsX = particles.getX();
+    final double[] positionsY = particles.getY();
+    Arrays.fill(forceX, 0, particles.size(), 0);
+    Arrays.fill(forceY, 0, particles.size(), 0);
+
+    for (int pair = 0; pair < pairs.size(); pair++) {
+      final int first = pairs.first(pair);
+      final int second = pairs.second(pair);
+      final double magnitude = forceMagnitude(epsilon, rm, pairs.distance(pair));
+      final double dx = positionsX[first] - positionsX[second];
+      final double dy = positionsY[first] - positionsY[second];
+      final double scale = magnitude / Point2D.magnitude(dx, dy);
+      forceX[first] += scale * dx;
+      forceY[first] += scale * dy;
+      forceX[second] -= scale * dx;
+      forceY[second] -= scale * dy;
+    }
+  }
+
+  // Force on a particle at (x, y) from a fixed point, such as the closest point of a wall, added
+  // to force[0] and force[1]
+  public void addPointForce(final double x, final double y, final double pointX,
+      final double pointY, final double[] force) {
+    final double dx = x - pointX;
+    final double dy = y - pointY;
+    final double distance = Point2D.magnitude(dx, dy);
+    final double magnitude = forceMagnitude(epsilon, rm, distance);
+
+    force[0] += magnitude * dx / distance;
+    force[1] += magnitude * dy / distance;
+  }
 }
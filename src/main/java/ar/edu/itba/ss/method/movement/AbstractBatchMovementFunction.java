@@ -0,0 +1,107 @@
+package ar.edu.itba.ss.method.movement;
+
+import static java.util.Objects.requireNonNull;
+
+import ar.edu.itba.ss.method.force.BoundaryForce;
+import ar.edu.itba.ss.method.force.IndexedForceFunction;
+import ar.edu.itba.ss.model.NeighbourList;
+import ar.edu.itba.ss.model.ParticleStore;
+import java.util.Arrays;
+
+public abstract class AbstractBatchMovementFunction implements BatchMovementFunction {
+
+  protected final IndexedForceFunction forceFunction;
+  protected final double[] force;
+  protected double[] nextX = new double[0];
+  protected double[] nextY = new double[0];
+  protected double[] nextVx = new double[0];
+  protected double[] nextVy = new double[0];
+  private double[] scratch = new double[0];
+  private BoundaryForce boundaries = BoundaryForce.NONE;
+  private int slots;
+
+  protected AbstractBatchMovementFunction(final IndexedForceFunction forceFunction) {
+    this.forceFunction = requireNonNull(forceFunction);
+    this.force = new double[2];
+  }
+
+  // Every particle is stepped against the neighbours as they were, then the store is updated
+  @Override
+  public void move(final ParticleStore particles, final NeighbourList neighbours,
+      final BoundaryForce boundaries, final double dt) {
+
+    final int n = particles.size();
+    ensureSlots(particles, n);
+    this.boundaries = requireNonNull(boundaries);
+
+    for (int slot = 0; slot < n; slot++) {
+      step(particles, neighbours, slot, dt);
+    }
+
+    System.arraycopy(nextX, 0, particles.getX(), 0, n);
+    System.arraycopy(nextY, 0, particles.getY(), 0, n);
+    System.arraycopy(nextVx, 0, particles.getVx(), 0, n);
+    System.arraycopy(nextVy, 0, particles.getVy(), 0, n);
+  }
+
+  public void clearState(final ParticleStore particles) {
+    ensureSlots(particles, particles.size());
+
+    for (int slot = 0; slot < particles.size(); slot++) {
+      clearState(particles, slot);
+    }
+  }
+
+  @Override
+  public void reorder(final ParticleStore particles, final int[] order) {
+    ensureSlots(particles, particles.size());
+    reorderState(order, particles.size());
+  }
+
+  protected abstract void step(final ParticleStore particles, final NeighbourList neighbours,
+      final int slot, final double dt);
+
+  protected abstract void grow(final int capacity);
+
+  protected abstract void reorderState(final int[] order, final int n);
+
+  // Total force on the particle in the slot, pairs and boundaries, left in force
+  protected void force(final ParticleStore particles, final NeighbourList neighbours,
+      final int slot, final double x, final double y, final double vx, final double vy) {
+    forceFunction.apply(particles, neighbours, slot, x, y, vx, vy, force);
+    boundaries.apply(particles, slot, x, y, vx, vy, force);
+  }
+
+  protected void reorder(final double[] values, final int[] order, final int n,
+      final int stride) {
+    if (scratch.length < n * stride) {
+      scratch = new double[n * stride];
+    }
+
+    ParticleStore.reorder(values, order, n, stride, scratch);
+  }
+
+  protected void ensureSlots(final ParticleStore particles, final int n) {
+    if (nextX.length < n) {
+      final int capacity = Math.max(n, nextX.length * 2);
+      nextX = Arrays.copyOf(nextX, capacity);
+      nextY = Arrays.copyOf(nextY, capacity);
+      nextVx = Arrays.copyOf(nextVx, capacity);
+      nextVy = Arrays.copyOf(nextVy, capacity);
+      grow(capacity);
+    }
+
+    // Slots seen for the first time start from a cleared state
+    for (; slots < n; slots++) {
+      clearState(particles, slots);
+    }
+  }
+
+  protected void setNext(final int slot, final double x, final double y, final double vx,
+      final double vy) {
+    nextX[slot] = x;
+    nextY[slot] = y;
+    nextVx[slot] = vx;
+    nextVy[slot] = vy;
+  }
+}
@@ -0,0 +1,31 @@
+package ar.edu.itba.ss.method.movement;
+
+import ar.edu.itba.ss.model.ParticleStore;
+
+public abstract class AbstractStepIntegrator implements StepIntegrator {
+
+  private int capacity;
+  private int slots;
+
+  @Override
+  public void initialize(final ParticleStore particles) {
+    slots = 0;
+    ensureSlots(particles);
+  }
+
+  protected abstract void grow(final int capacity);
+
+  protected void ensureSlots(final ParticleStore particles) {
+    final int n = particles.size();
+
+    if (capacity < n) {
+      capacity = Math.max(n, capacity * 2);
+      grow(capacity);
+    }
+
+    // Slots seen for the first time start from the state in the store
+    for (; slots < n; slots++) {
+      clearState(particles, slots);
+    }
+  }
+}
@@ -0,0 +1,84 @@
+package ar.edu.itba.ss.method.movement;
+
+import ar.edu.itba.ss.method.force.IndexedForceFunction;
+import ar.edu.itba.ss.model.NeighbourList;
+import ar.edu.itba.ss.model.ParticleStore;
+import java.util.Arrays;
+
+public class BatchBeemanMovementFunction extends AbstractBatchMovementFunction {
+
+  private final boolean velocityDependent;
+  private double[] previousAx = new double[0];
+  private double[] previousAy = new double[0];
+
+  public BatchBeemanMovementFunction(final IndexedForceFunction forceFunction) {
+    this(forceFunction, false);
+  }
+
+  // The velocity dependent variant also predicts the velocity before the second force evaluation
+  public BatchBeemanMovementFunction(final IndexedForceFunction forceFunction,
+      final boolean velocityDependent) {
+    super(forceFunction);
+    this.velocityDependent = velocityDependent;
+  }
+
+  public void setPreviousAcceleration(final ParticleStore particles, final int slot,
+      final double ax, final double ay) {
+    ensureSlots(particles, particles.size());
+    previousAx[slot] = ax;
+    previousAy[slot] = ay;
+  }
+
+  @Override
+  protected void step(final ParticleStore particles, final NeighbourList neighbours,
+      final int slot, final double dt) {
+
+    final double x = particles.getX()[slot];
+    final double y = particles.getY()[slot];
+    final double vx = particles.getVx()[slot];
+    final double vy = particles.getVy()[slot];
+    final double mass = particles.getMass()[slot];
+
+    force(particles, neighbours, slot, x, y, vx, vy);
+    final double ax = force[0] * (1.0 / mass);
+    final double ay = force[1] * (1.0 / mass);
+
+    final double predictedX = x + vx * dt + ax * (dt * dt * 2.0 / 3.0)
+        - previousAx[slot] * (dt * dt / 6.0);
+    final double predictedY = y + vy * dt + ay * (dt * dt * 2.0 / 3.0)
+        - previousAy[slot] * (dt * dt / 6.0);
+    final double predictedVx = velocityDependent
+        ? vx + ax * (dt * 3.0 / 2.0) - previousAx[slot] * (dt / 2.0) : vx;
+    final double predictedVy = velocityDependent
+        ? vy + ay * (dt * 3.0 / 2.0) - previousAy[slot] * (dt / 2.0) : vy;
+
+    force(particles, neighbours, slot, predictedX, predictedY, predictedVx, predictedVy);
+    final double predictedAx = force[0] * (1.0 / mass);
+    final double predictedAy = force[1] * (1.0 / mass);
+
+    setNext(slot, predictedX, predictedY,
+        vx + predictedAx * (dt / 3.0) + ax * (dt * 5.0 / 6.0) - previousAx[slot] * (dt / 6.0),
+        vy + predictedAy * (dt / 3.0) + ay * (dt * 5.0 / 6.0) - previousAy[slot] * (dt / 6.0));
+
+    previousAx[slot] = ax;
+    previousAy[slot] = ay;
+  }
+
+  @Override
+  protected void grow(final int capacity) {
+    previousAx = Arrays.copyOf(previousAx, capacity);
+    previousAy = Arrays.copyOf(previousAy, capacity);
+  }
+
+  @Override
+  protected void reorderState(final int[] order, final int n) {
+    reorder(previousAx, order, n, 1);
+    reorder(previousAy, order, n, 1);
+  }
+
+  @Override
+  public void clearState(final ParticleStore particles, final int slot) {
+    previousAx[slot] = 0;
+    previousAy[slot] = 0;
+  }
+}
@@ -0,0 +1,48 @@
+package ar.edu.itba.ss.method.movement;
+
+import ar.edu.itba.ss.method.force.IndexedForceFunction;
+import ar.edu.itba.ss.model.NeighbourList;
+import ar.edu.itba.ss.model.ParticleStore;
+
+public class BatchEulerMovementFunction extends AbstractBatchMovementFunction {
+
+  public BatchEulerMovementFunction(final IndexedForceFunction forceFunction) {
+    super(forceFunction);
+  }
+
+  @Override
+  protected void step(final ParticleStore particles, final NeighbourList neighbours,
+      final int slot, final double dt) {
+
+    final double x = particles.getX()[slot];
+    final double y = particles.getY()[slot];
+    final double vx = particles.getVx()[slot];
+    final double vy = particles.getVy()[slot];
+    final double mass = particles.getMass()[slot];
+
+    force(particles, neighbours, slot, x, y, vx, vy);
+
+    final double newVx = vx + force[0] * (dt / mass);
+    final double newVy = vy + force[1] * (dt / mass);
+
+    setNext(slot,
+        x + newVx * dt + force[0] * (dt * dt / (2 * mass)),
+        y + newVy * dt + force[1] * (dt * dt / (2 * mass)),
+        newVx, newVy);
+  }
+
+  @Override
+  protected void grow(final int capacity) {
+    // Stateless
+  }
+
+  @Override
+  protected void reorderState(final int[] order, final int n) {
+    // Stateless
+  }
+
+  @Override
+  public void clearState(final ParticleStore particles, final int slot) {
+    // Stateless
+  }
+}
@@ -0,0 +1,128 @@
+package ar.edu.itba.ss.method.movement;
+
+import static java.lang.Math.pow;
+
+import ar.edu.itba.ss.method.force.IndexedForceFunction;
+import ar.edu.itba.ss.model.NeighbourList;
+import ar.edu.itba.ss.model.ParticleStore;
+import ar.edu.itba.ss.model.Physics;
+import java.util.Arrays;
+
+public class BatchGearMovementFunction extends AbstractBatchMovementFunction {
+
+  private static final double[] factorials = new double[]{
+      1,
+      1,
+      2,
+      6,
+      24,
+      120
+  };
+
+  private final int order;
+  private final double[] alphas;
+  private final double[] predictedX;
+  private final double[] predictedY;
+  private final double[] taylor;
+  private final double[] corrections;
+  private double coefficientsDt = Double.NaN;
+  // Derivatives of every particle, stored as slot * (order + 1) + derivative
+  private double[] rx = new double[0];
+  private double[] ry = new double[0];
+
+  public BatchGearMovementFunction(final IndexedForceFunction forceFunction,
+      final double[] alphas) {
+    super(forceFunction);
+
+    if (alphas.length > factorials.length) {
+      throw new IllegalArgumentException("Order not supported");
+    }
+
+    if (alphas.length < 3) {
+      throw new IllegalArgumentException("Order has to be at least 2");
+    }
+
+    this.order = alphas.length - 1;
+    this.alphas = alphas;
+    this.predictedX = new double[order + 1];
+    this.predictedY = new double[order + 1];
+    this.taylor = new double[order + 1];
+    this.corrections = new double[order + 1];
+  }
+
+  public void setDerivative(final ParticleStore particles, final int slot, final int derivative,
+      final double x, final double y) {
+    if (derivative < 0 || derivative > order) {
+      throw new IllegalArgumentException("Invalid derivative");
+    }
+
+    ensureSlots(particles, particles.size());
+    rx[slot * (order + 1) + derivative] = x;
+    ry[slot * (order + 1) + derivative] = y;
+  }
+
+  @Override
+  protected void step(final ParticleStore particles, final NeighbourList neighbours,
+      final int slot, final double dt) {
+
+    final int base = slot * (order + 1);
+
+    if (dt != coefficientsDt) {
+      for (int i = 0; i < order + 1; i++) {
+        taylor[i] = pow(dt, i) / factorials[i];
+        corrections[i] = alphas[i] * factorials[i] / pow(dt, i);
+      }
+      coefficientsDt = dt;
+    }
+
+    for (int i = order; i >= 0; i--) {
+      predictedX[i] = rx[base + i];
+      predictedY[i] = ry[base + i];
+
+      for (int j = i + 1, l = 1; j < order + 1; j++, l++) {
+        predictedX[i] += rx[base + j] * taylor[l];
+        predictedY[i] += ry[base + j] * taylor[l];
+      }
+    }
+
+    force(particles, neighbours, slot, predictedX[0], predictedY[0], predictedX[1], predictedY[1]);
+    final double mass = particles.getMass()[slot];
+    final double deltaR2X = (force[0] * (1.0 / mass) - predictedX[2]) * (dt * dt / 2);
+    final double deltaR2Y = (force[1] * (1.0 / mass) - predictedY[2]) * (dt * dt / 2);
+
+    for (int i = 0; i < order + 1; i++) {
+      rx[base + i] = predictedX[i] + deltaR2X * corrections[i];
+      ry[base + i] = predictedY[i] + deltaR2Y * corrections[i];
+    }
+
+    setNext(slot, rx[base], ry[base], rx[base + 1], ry[base + 1]);
+  }
+
+  @Override
+  protected void grow(final int capacity) {
+    rx = Arrays.copyOf(rx, capacity * (order + 1));
+    ry = Arrays.copyOf(ry, capacity * (order + 1));
+  }
+
+  @Override
+  protected void reorderState(final int[] order, final int n) {
+    reorder(rx, order, n, this.order + 1);
+    reorder(ry, order, n, this.order + 1);
+  }
+
+  @Override
+  public void clearState(final ParticleStore particles, final int slot) {
+    final int base = slot * (order + 1);
+
+    rx[base] = particles.getX()[slot];
+    ry[base] = particles.getY()[slot];
+    rx[base + 1] = particles.getVx()[slot];
+    ry[base + 1] = particles.getVy()[slot];
+    rx[base + 2] = 0;
+    ry[base + 2] = -Physics.GRAVITY;
+    for (int i = 3; i <= order; i++) {
+      rx[base + i] = 0;
+      ry[base + i] = 0;
+    }
+  }
+}
@@ -0,0 +1,22 @@
+package ar.edu.itba.ss.method.movement;
+
+import ar.edu.itba.ss.method.force.BoundaryForce;
+import ar.edu.itba.ss.model.NeighbourList;
+import ar.edu.itba.ss.model.ParticleStore;
+
+public interface BatchMovementFunction {
+
+  default void move(final ParticleStore particles, final NeighbourList neighbours,
+      final double dt) {
+    move(particles, neighbours, BoundaryForce.NONE, dt);
+  }
+
+  // The boundaries are added to every force evaluation of the step
+  void move(final ParticleStore particles, final NeighbourList neighbours,
+      final BoundaryForce boundaries, final double dt);
+
+  void clearState(final ParticleStore particles, final int slot);
+
+  // Follows ParticleStore.reorder, so each slot keeps the history of its particle
+  void reorder(final ParticleStore particles, final int[] order);
+}
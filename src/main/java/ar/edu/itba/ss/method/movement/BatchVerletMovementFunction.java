@@ -0,0 +1,62 @@
+package ar.edu.itba.ss.method.movement;
+
+import ar.edu.itba.ss.method.force.IndexedForceFunction;
+import ar.edu.itba.ss.model.NeighbourList;
+import ar.edu.itba.ss.model.ParticleStore;
+import java.util.Arrays;
+
+public class BatchVerletMovementFunction extends AbstractBatchMovementFunction {
+
+  private double[] previousX = new double[0];
+  private double[] previousY = new double[0];
+
+  public BatchVerletMovementFunction(final IndexedForceFunction forceFunction) {
+    super(forceFunction);
+  }
+
+  public void setPreviousPosition(final ParticleStore particles, final int slot, final double x,
+      final double y) {
+    ensureSlots(particles, particles.size());
+    previousX[slot] = x;
+    previousY[slot] = y;
+  }
+
+  @Override
+  protected void step(final ParticleStore particles, final NeighbourList neighbours,
+      final int slot, final double dt) {
+
+    final double x = particles.getX()[slot];
+    final double y = particles.getY()[slot];
+    final double mass = particles.getMass()[slot];
+
+    force(particles, neighbours, slot, x, y, particles.getVx()[slot], particles.getVy()[slot]);
+
+    final double predictedX = x * 2 - previousX[slot] + force[0] * (dt * dt / mass);
+    final double predictedY = y * 2 - previousY[slot] + force[1] * (dt * dt / mass);
+
+    setNext(slot, predictedX, predictedY,
+        (predictedX - previousX[slot]) * (1.0 / (2.0 * dt)),
+        (predictedY - previousY[slot]) * (1.0 / (2.0 * dt)));
+
+    previousX[slot] = x;
+    previousY[slot] = y;
+  }
+
+  @Override
+  protected void grow(final int capacity) {
+    previousX = Arrays.copyOf(previousX, capacity);
+    previousY = Arrays.copyOf(previousY, capacity);
+  }
+
+  @Override
+  protected void reorderState(final int[] order, final int n) {
+    reorder(previousX, order, n, 1);
+    reorder(previousY, order, n, 1);
+  }
+
+  @Override
+  public void clearState(final ParticleStore particles, final int slot) {
+    previousX[slot] = particles.getX()[slot];
+    previousY[slot] = particles.getY()[slot];
+  }
+}
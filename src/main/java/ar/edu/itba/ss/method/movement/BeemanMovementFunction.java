@@ -5,64 +5,66 @@ import static java.util.Objects.requireNonNull;
 import ar.edu.itba.ss.model.ImmutableParticle;
 import ar.edu.itba.ss.model.Neighbour;
 import ar.edu.itba.ss.model.Particle;
+import ar.edu.itba.ss.model.Point2D;
 import java.util.Set;
 import java.util.function.BiFunction;
-import javafx.geometry.Point2D;
 
 public class BeemanMovementFunction implements MovementFunction {
 
   private final BiFunction<Particle, Set<Neighbour>, Point2D> forceFunction;
-  private Point2D previousAcceleration;
+  private double previousAx;
+  private double previousAy;
 
   public BeemanMovementFunction(final BiFunction<Particle, Set<Neighbour>, Point2D> forceFunction,
       final Point2D previousAcceleration) {
 
     this.forceFunction = requireNonNull(forceFunction);
-    this.previousAcceleration = requireNonNull(previousAcceleration);
+    this.previousAx = previousAcceleration.getX();
+    this.previousAy = previousAcceleration.getY();
   }
 
   @Override
   public Particle move(final Particle currentParticle, final Set<Neighbour> neighbours,
       final double dt) {
 
-    final Point2D currentAcceleration = forceFunction.apply(currentParticle, neighbours)
-        .multiply(1.0 / currentParticle.mass());
+    final Point2D position = currentParticle.position();
+    final Point2D velocity = currentParticle.velocity();
+    final Point2D currentForce = forceFunction.apply(currentParticle, neighbours);
+    final double currentAx = currentForce.getX() * (1.0 / currentParticle.mass());
+    final double currentAy = currentForce.getY() * (1.0 / currentParticle.mass());
 
-    final Point2D predictedPosition = currentParticle.position()
-        .add(currentParticle.velocity()
-            .multiply(dt))
-        .add(currentAcceleration
-            .multiply(dt * dt * 2.0 / 3.0))
-        .subtract(previousAcceleration
-            .multiply(dt * dt / 6.0));
+    final double predictedX = position.getX() + velocity.getX() * dt
+        + currentAx * (dt * dt * 2.0 / 3.0) - previousAx * (dt * dt / 6.0);
+    final double predictedY = position.getY() + velocity.getY() * dt
+        + currentAy * (dt * dt * 2.0 / 3.0) - previousAy * (dt * dt / 6.0);
 
     final Particle predictedParticle = ImmutableParticle.builder()
         .from(currentParticle)
-        .position(predictedPosition)
+        .position(new Point2D(predictedX, predictedY))
         .build();
 
-    final Point2D predictedAcceleration = forceFunction.apply(predictedParticle, neighbours)
-        .multiply(1.0 / predictedParticle.mass());
+    final Point2D predictedForce = forceFunction.apply(predictedParticle, neighbours);
+    final double predictedAx = predictedForce.getX() * (1.0 / predictedParticle.mass());
+    final double predictedAy = predictedForce.getY() * (1.0 / predictedParticle.mass());
 
-    final Point2D predictedVelocity = currentParticle.velocity()
-        .add(predictedAcceleration
-            .multiply(dt / 3.0))
-        .add(currentAcceleration
-            .multiply(dt * 5.0 / 6.0))
-        .subtract(previousAcceleration
-            .multiply(dt / 6.0));
+    final double predictedVx = velocity.getX() + predictedAx * (dt / 3.0)
+        + currentAx * (dt * 5.0 / 6.0) - previousAx * (dt / 6.0);
+    final double predictedVy = velocity.getY() + predictedAy * (dt / 3.0)
+        + currentAy * (dt * 5.0 / 6.0) - previousAy * (dt / 6.0);
 
-    previousAcceleration = currentAcceleration;
+    previousAx = currentAx;
+    previousAy = currentAy;
 
     return ImmutableParticle.builder()
-        .from(currentParticle)
-        .position(predictedPosition)
-        .velocity(predictedVelocity)
+        .from(predictedParticle)
+        .velocity(new Point2D(predictedVx, predictedVy))
         .build();
   }
 
+
   @Override
   public void clearState(Particle particle) {
-    previousAcceleration = Point2D.ZERO;
+    previousAx = 0;
+    previousAy = 0;
   }
 }
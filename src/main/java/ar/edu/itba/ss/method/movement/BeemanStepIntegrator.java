@@ -0,0 +1,84 @@
+package ar.edu.itba.ss.method.movement;
+
+import ar.edu.itba.ss.model.ParticleStore;
+import java.util.Arrays;
+
+public class BeemanStepIntegrator extends AbstractStepIntegrator {
+
+  private double[] currentVx = new double[0];
+  private double[] currentVy = new double[0];
+  private double[] currentAx = new double[0];
+  private double[] currentAy = new double[0];
+  private double[] previousAx = new double[0];
+  private double[] previousAy = new double[0];
+
+  public void setPreviousAcceleration(final ParticleStore particles, final int slot,
+      final double ax, final double ay) {
+    ensureSlots(particles);
+    previousAx[slot] = ax;
+    previousAy[slot] = ay;
+  }
+
+  // The predicted velocity is the one of the velocity dependent variant, it only matters to
+  // forces that depend on it
+  @Override
+  public void predict(final ParticleStore particles, final double dt) {
+    ensureSlots(particles);
+
+    final double[] x = particles.getX();
+    final double[] y = particles.getY();
+    final double[] vx = particles.getVx();
+    final double[] vy = particles.getVy();
+    final double[] ax = particles.getAx();
+    final double[] ay = particles.getAy();
+
+    for (int slot = 0; slot < particles.size(); slot++) {
+      currentVx[slot] = vx[slot];
+      currentVy[slot] = vy[slot];
+      currentAx[slot] = ax[slot];
+      currentAy[slot] = ay[slot];
+
+      x[slot] += vx[slot] * dt + ax[slot] * (dt * dt * 2.0 / 3.0)
+          - previousAx[slot] * (dt * dt / 6.0);
+      y[slot] += vy[slot] * dt + ay[slot] * (dt * dt * 2.0 / 3.0)
+          - previousAy[slot] * (dt * dt / 6.0);
+      vx[slot] += ax[slot] * (dt * 3.0 / 2.0) - previousAx[slot] * (dt / 2.0);
+      vy[slot] += ay[slot] * (dt * 3.0 / 2.0) - previousAy[slot] * (dt / 2.0);
+    }
+  }
+
+  @Override
+  public void correct(final ParticleStore particles, final double dt) {
+    final double[] vx = particles.getVx();
+    final double[] vy = particles.getVy();
+    final double[] ax = particles.getAx();
+    final double[] ay = particles.getAy();
+
+    for (int slot = 0; slot < particles.size(); slot++) {
+      vx[slot] = currentVx[slot] + ax[slot] * (dt / 3.0) + currentAx[slot] * (dt * 5.0 / 6.0)
+          - previousAx[slot] * (dt / 6.0);
+      vy[slot] = currentVy[slot] + ay[slot] * (dt / 3.0) + currentAy[slot] * (dt * 5.0 / 6.0)
+          - previousAy[slot] * (dt / 6.0);
+
+      previousAx[slot] = currentAx[slot];
+      previousAy[slot] = currentAy[slot];
+    }
+  }
+
+  @Override
+  protected void grow(final int capacity) {
+    currentVx = Arrays.copyOf(currentVx, capacity);
+    currentVy = Arrays.copyOf(currentVy, capacity);
+    currentAx = Arrays.copyOf(currentAx, capacity);
+    currentAy = Arrays.copyOf(currentAy, capacity);
+    previousAx = Arrays.copyOf(previousAx, capacity);
+    previousAy = Arrays.copyOf(previousAy, capacity);
+  }
+
+  // Without history the acceleration is taken as constant over the previous step
+  @Override
+  public void clearState(final ParticleStore particles, final int slot) {
+    previousAx[slot] = particles.getAx()[slot];
+    previousAy[slot] = particles.getAy()[slot];
+  }
+}
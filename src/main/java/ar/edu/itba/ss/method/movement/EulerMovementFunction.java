@@ -5,9 +5,9 @@ import static java.util.Objects.requireNonNull;
 import ar.edu.itba.ss.model.ImmutableParticle;
 import ar.edu.itba.ss.model.Neighbour;
 import ar.edu.itba.ss.model.Particle;
+import ar.edu.itba.ss.model.Point2D;
 import java.util.Set;
 import java.util.function.BiFunction;
-import javafx.geometry.Point2D;
 
 public class EulerMovementFunction implements MovementFunction {
 
@@ -23,19 +23,19 @@ public class EulerMovementFunction implements MovementFunction {
       final double dt, final BiFunction<Particle, Set<Neighbour>, Point2D> forceFunction) {
 
     final Point2D force = forceFunction.apply(currentParticle, neighbours);
+    final double mass = currentParticle.mass();
 
-    final Point2D newVelocity = currentParticle.velocity()
-        .add(force
-            .multiply(dt / currentParticle.mass()));
+    final double newVx = currentParticle.velocity().getX() + force.getX() * (dt / mass);
+    final double newVy = currentParticle.velocity().getY() + force.getY() * (dt / mass);
 
-    final Point2D newPosition = currentParticle.position()
-        .add(newVelocity.multiply(dt))
-        .add(force
-            .multiply(dt * dt / (2 * currentParticle.mass())));
+    final double newX = currentParticle.position().getX() + newVx * dt
+        + force.getX() * (dt * dt / (2 * mass));
+    final double newY = currentParticle.position().getY() + newVy * dt
+        + force.getY() * (dt * dt / (2 * mass));
 
     return ImmutableParticle.builder().from(currentParticle)
-        .position(newPosition)
-        .velocity(newVelocity)
+        .position(new Point2D(newX, newY))
+        .velocity(new Point2D(newVx, newVy))
         .build();
   }
 
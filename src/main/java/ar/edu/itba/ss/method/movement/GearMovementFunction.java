@@ -7,9 +7,9 @@ import ar.edu.itba.ss.model.ImmutableParticle;
 import ar.edu.itba.ss.model.Neighbour;
 import ar.edu.itba.ss.model.Particle;
 import ar.edu.itba.ss.model.Physics;
+import ar.edu.itba.ss.model.Point2D;
 import java.util.Set;
 import java.util.function.BiFunction;
-import javafx.geometry.Point2D;
 
 public class GearMovementFunction implements MovementFunction {
 
@@ -41,8 +41,13 @@ public class GearMovementFunction implements MovementFunction {
   private final BiFunction<Particle, Set<Neighbour>, Point2D> forceFunction;
   private final int order;
   private final double[] alphas;
-  private final Point2D[] r;
-  private final Point2D[] rp;
+  private final double[] taylor;
+  private final double[] corrections;
+  private final double[] rx;
+  private final double[] ry;
+  private final double[] predictedX;
+  private final double[] predictedY;
+  private double coefficientsDt = Double.NaN;
 
   public GearMovementFunction(final BiFunction<Particle, Set<Neighbour>, Point2D> forceFunction,
       final double[] alphas, final Point2D[] r) {
@@ -58,50 +63,78 @@ public class GearMovementFunction implements MovementFunction {
     this.forceFunction = requireNonNull(forceFunction);
     this.order = alphas.length - 1;
     this.alphas = alphas;
-    this.r = r;
-    this.rp = new Point2D[order + 1];
+    this.taylor = new double[order + 1];
+    this.corrections = new double[order + 1];
+    this.rx = new double[order + 1];
+    this.ry = new double[order + 1];
+    this.predictedX = new double[order + 1];
+    this.predictedY = new double[order + 1];
+
+    // Derivatives left unset have to be filled by clearState before moving
+    for (int i = 0; i < r.length; i++) {
+      if (r[i] != null) {
+        rx[i] = r[i].getX();
+        ry[i] = r[i].getY();
+      }
+    }
   }
 
   @Override
   public Particle move(final Particle currentParticle, final Set<Neighbour> neighbours,
       final double dt) {
 
+    if (dt != coefficientsDt) {
+      for (int i = 0; i < order + 1; i++) {
+        taylor[i] = pow(dt, i) / factorials[i];
+        corrections[i] = alphas[i] * factorials[i] / pow(dt, i);
+      }
+      coefficientsDt = dt;
+    }
+
     for (int i = order; i >= 0; i--) {
-      rp[i] = r[i];
+      predictedX[i] = rx[i];
+      predictedY[i] = ry[i];
 
       for (int j = i + 1, l = 1; j < order + 1; j++, l++) {
-        rp[i] = rp[i].add(r[j].multiply(pow(dt, l) / factorials[l]));
+        predictedX[i] += rx[j] * taylor[l];
+        predictedY[i] += ry[j] * taylor[l];
       }
     }
 
     final Particle predictedParticle = ImmutableParticle.builder()
         .from(currentParticle)
-        .position(rp[0])
-        .velocity(rp[1])
+        .position(new Point2D(predictedX[0], predictedY[0]))
+        .velocity(new Point2D(predictedX[1], predictedY[1]))
         .build();
-    final Point2D deltaR2 = forceFunction.apply(predictedParticle, neighbours)
-        .multiply(1.0 / currentParticle.mass())
-        .subtract(rp[2])
-        .multiply(dt * dt / 2);
+    final Point2D force = forceFunction.apply(predictedParticle, neighbours);
+    final double deltaR2X = (force.getX() * (1.0 / currentParticle.mass()) - predictedX[2])
+        * (dt * dt / 2);
+    final double deltaR2Y = (force.getY() * (1.0 / currentParticle.mass()) - predictedY[2])
+        * (dt * dt / 2);
 
     for (int i = 0; i < order + 1; i++) {
-      r[i] = rp[i].add(deltaR2.multiply(alphas[i] * factorials[i] / pow(dt, i)));
+      rx[i] = predictedX[i] + deltaR2X * corrections[i];
+      ry[i] = predictedY[i] + deltaR2Y * corrections[i];
     }
 
     return ImmutableParticle.builder()
         .from(currentParticle)
-        .position(r[0])
-        .velocity(r[1])
+        .position(new Point2D(rx[0], ry[0]))
+        .velocity(new Point2D(rx[1], ry[1]))
         .build();
   }
 
   @Override
   public void clearState(final Particle particle) {
-    r[0] = particle.position();
-    r[1] = particle.velocity();
-    r[2] = new Point2D(0, -Physics.GRAVITY);
-    for (int i = 3; i < r.length; i++) {
-      r[i] = Point2D.ZERO;
+    rx[0] = particle.position().getX();
+    ry[0] = particle.position().getY();
+    rx[1] = particle.velocity().getX();
+    ry[1] = particle.velocity().getY();
+    rx[2] = 0;
+    ry[2] = -Physics.GRAVITY;
+    for (int i = 3; i <= order; i++) {
+      rx[i] = 0;
+      ry[i] = 0;
     }
   }
 }
@@ -0,0 +1,136 @@
+package ar.edu.itba.ss.method.movement;
+
+import static java.lang.Math.pow;
+
+import ar.edu.itba.ss.model.ParticleStore;
+import java.util.Arrays;
+
+public class GearStepIntegrator extends AbstractStepIntegrator {
+
+  private static final double[] factorials = new double[]{
+      1,
+      1,
+      2,
+      6,
+      24,
+      120
+  };
+
+  private final int order;
+  private final double[] alphas;
+  private final double[] taylor;
+  private final double[] corrections;
+  private double coefficientsDt = Double.NaN;
+  // Derivatives of every particle, stored as slot * (order + 1) + derivative
+  private double[] rx = new double[0];
+  private double[] ry = new double[0];
+
+  public GearStepIntegrator(final double[] alphas) {
+    if (alphas.length > factorials.length) {
+      throw new IllegalArgumentException("Order not supported");
+    }
+
+    if (alphas.length < 3) {
+      throw new IllegalArgumentException("Order has to be at least 2");
+    }
+
+    this.order = alphas.length - 1;
+    this.alphas = alphas;
+    this.taylor = new double[order + 1];
+    this.corrections = new double[order + 1];
+  }
+
+  public void setDerivative(final ParticleStore particles, final int slot, final int derivative,
+      final double x, final double y) {
+    if (derivative < 0 || derivative > order) {
+      throw new IllegalArgumentException("Invalid derivative");
+    }
+
+    ensureSlots(particles);
+    rx[slot * (order + 1) + derivative] = x;
+    ry[slot * (order + 1) + derivative] = y;
+  }
+
+  @Override
+  public void predict(final ParticleStore particles, final double dt) {
+    ensureSlots(particles);
+
+    if (dt != coefficientsDt) {
+      for (int i = 0; i < order + 1; i++) {
+        taylor[i] = pow(dt, i) / factorials[i];
+        corrections[i] = alphas[i] * factorials[i] / pow(dt, i);
+      }
+      coefficientsDt = dt;
+    }
+
+    final double[] x = particles.getX();
+    final double[] y = particles.getY();
+    final double[] vx = particles.getVx();
+    final double[] vy = particles.getVy();
+
+    for (int slot = 0; slot < particles.size(); slot++) {
+      final int base = slot * (order + 1);
+
+      // Each derivative only reads higher ones, so it can be predicted in place
+      for (int i = 0; i < order + 1; i++) {
+        for (int j = i + 1, l = 1; j < order + 1; j++, l++) {
+          rx[base + i] += rx[base + j] * taylor[l];
+          ry[base + i] += ry[base + j] * taylor[l];
+        }
+      }
+
+      x[slot] = rx[base];
+      y[slot] = ry[base];
+      vx[slot] = rx[base + 1];
+      vy[slot] = ry[base + 1];
+    }
+  }
+
+  @Override
+  public void correct(final ParticleStore particles, final double dt) {
+    final double[] x = particles.getX();
+    final double[] y = particles.getY();
+    final double[] vx = particles.getVx();
+    final double[] vy = particles.getVy();
+    final double[] ax = particles.getAx();
+    final double[] ay = particles.getAy();
+
+    for (int slot = 0; slot < particles.size(); slot++) {
+      final int base = slot * (order + 1);
+      final double deltaR2X = (ax[slot] - rx[base + 2]) * (dt * dt / 2);
+      final double deltaR2Y = (ay[slot] - ry[base + 2]) * (dt * dt / 2);
+
+      for (int i = 0; i < order + 1; i++) {
+        rx[base + i] += deltaR2X * corrections[i];
+        ry[base + i] += deltaR2Y * corrections[i];
+      }
+
+      x[slot] = rx[base];
+      y[slot] = ry[base];
+      vx[slot] = rx[base + 1];
+      vy[slot] = ry[base + 1];
+    }
+  }
+
+  @Override
+  protected void grow(final int capacity) {
+    rx = Arrays.copyOf(rx, capacity * (order + 1));
+    ry = Arrays.copyOf(ry, capacity * (order + 1));
+  }
+
+  @Override
+  public void clearState(final ParticleStore particles, final int slot) {
+    final int base = slot * (order + 1);
+
+    rx[base] = particles.getX()[slot];
+    ry[base] = particles.getY()[slot];
+    rx[base + 1] = particles.getVx()[slot];
+    ry[base + 1] = particles.getVy()[slot];
+    rx[base + 2] = particles.getAx()[slot];
+    ry[base + 2] = particles.getAy()[slot];
+    for (int i = 3; i <= order; i++) {
+      rx[base + i] = 0;
+      ry[base + i] = 0;
+    }
+  }
+}
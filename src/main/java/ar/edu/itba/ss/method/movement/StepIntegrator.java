@@ -0,0 +1,20 @@
+package ar.edu.itba.ss.method.movement;
+
+import ar.edu.itba.ss.model.ParticleStore;
+
+// Integrators split in two phases so forces are evaluated once per particle per step: predict
+// moves every particle, then the caller stores the accelerations at the predicted state and
+// correct finishes the step with them.
+public interface StepIntegrator {
+
+  // The store has to hold the accelerations of the current state
+  void initialize(final ParticleStore particles);
+
+  void predict(final ParticleStore particles, final double dt);
+
+  void correct(final ParticleStore particles, final double dt);
+
+  // Restarts the history of a slot from the state in the store, after its particle was moved by
+  // something other than the integrator
+  void clearState(final ParticleStore particles, final int slot);
+}
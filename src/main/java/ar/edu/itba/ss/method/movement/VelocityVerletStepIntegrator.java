@@ -0,0 +1,67 @@
+package ar.edu.itba.ss.method.movement;
+
+import ar.edu.itba.ss.model.ParticleStore;
+import java.util.Arrays;
+
+public class VelocityVerletStepIntegrator extends AbstractStepIntegrator {
+
+  private double[] previousVx = new double[0];
+  private double[] previousVy = new double[0];
+  private double[] previousAx = new double[0];
+  private double[] previousAy = new double[0];
+
+  // Velocities are advanced a whole step with the old acceleration, so velocity dependent forces
+  // see a first order estimate that is replaced on correct
+  @Override
+  public void predict(final ParticleStore particles, final double dt) {
+    ensureSlots(particles);
+
+    final double[] x = particles.getX();
+    final double[] y = particles.getY();
+    final double[] vx = particles.getVx();
+    final double[] vy = particles.getVy();
+    final double[] ax = particles.getAx();
+    final double[] ay = particles.getAy();
+
+    for (int slot = 0; slot < particles.size(); slot++) {
+      previousVx[slot] = vx[slot];
+      previousVy[slot] = vy[slot];
+      previousAx[slot] = ax[slot];
+      previousAy[slot] = ay[slot];
+
+      x[slot] += vx[slot] * dt + ax[slot] * (dt * dt / 2);
+      y[slot] += vy[slot] * dt + ay[slot] * (dt * dt / 2);
+      vx[slot] += ax[slot] * dt;
+      vy[slot] += ay[slot] * dt;
+    }
+  }
+
+  @Override
+  public void correct(final ParticleStore particles, final double dt) {
+    final double[] vx = particles.getVx();
+    final double[] vy = particles.getVy();
+    final double[] ax = particles.getAx();
+    final double[] ay = particles.getAy();
+
+    for (int slot = 0; slot < particles.size(); slot++) {
+      vx[slot] = previousVx[slot] + (previousAx[slot] + ax[slot]) * (dt / 2);
+      vy[slot] = previousVy[slot] + (previousAy[slot] + ay[slot]) * (dt / 2);
+    }
+  }
+
+  @Override
+  protected void grow(final int capacity) {
+    previousVx = Arrays.copyOf(previousVx, capacity);
+    previousVy = Arrays.copyOf(previousVy, capacity);
+    previousAx = Arrays.copyOf(previousAx, capacity);
+    previousAy = Arrays.copyOf(previousAy, capacity);
+  }
+
+  @Override
+  public void clearState(final ParticleStore particles, final int slot) {
+    previousVx[slot] = particles.getVx()[slot];
+    previousVy[slot] = particles.getVy()[slot];
+    previousAx[slot] = particles.getAx()[slot];
+    previousAy[slot] = particles.getAy()[slot];
+  }
+}
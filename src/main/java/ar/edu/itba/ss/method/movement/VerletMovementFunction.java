@@ -5,47 +5,52 @@ import static java.util.Objects.requireNonNull;
 import ar.edu.itba.ss.model.ImmutableParticle;
 import ar.edu.itba.ss.model.Neighbour;
 import ar.edu.itba.ss.model.Particle;
+import ar.edu.itba.ss.model.Point2D;
 import java.util.Set;
 import java.util.function.BiFunction;
-import javafx.geometry.Point2D;
 
 public class VerletMovementFunction implements MovementFunction {
 
   private final BiFunction<Particle, Set<Neighbour>, Point2D> forceFunction;
-  private Point2D previousPosition;
+  private double previousX;
+  private double previousY;
 
   public VerletMovementFunction(final BiFunction<Particle, Set<Neighbour>, Point2D> forceFunction,
       final Point2D previousPosition) {
 
     this.forceFunction = requireNonNull(forceFunction);
-    this.previousPosition = requireNonNull(previousPosition);
+    this.previousX = previousPosition.getX();
+    this.previousY = previousPosition.getY();
   }
 
   @Override
   public Particle move(final Particle currentParticle, final Set<Neighbour> neighbours,
       final double dt) {
 
+    final Point2D position = currentParticle.position();
     final Point2D currentForce = forceFunction.apply(currentParticle, neighbours);
+    final double mass = currentParticle.mass();
 
-    final Point2D predictedPosition = currentParticle.position()
-        .multiply(2)
-        .subtract(previousPosition)
-        .add(currentForce.multiply(dt * dt / currentParticle.mass()));
+    final double predictedX = position.getX() * 2 - previousX
+        + currentForce.getX() * (dt * dt / mass);
+    final double predictedY = position.getY() * 2 - previousY
+        + currentForce.getY() * (dt * dt / mass);
 
-    final Point2D predictedVelocity = predictedPosition
-        .subtract(previousPosition)
-        .multiply(1.0 / (2.0 * dt));
+    final double predictedVx = (predictedX - previousX) * (1.0 / (2.0 * dt));
+    final double predictedVy = (predictedY - previousY) * (1.0 / (2.0 * dt));
 
-    previousPosition = currentParticle.position();
+    previousX = position.getX();
+    previousY = position.getY();
 
     return ImmutableParticle.builder().from(currentParticle)
-        .position(predictedPosition)
-        .velocity(predictedVelocity)
+        .position(new Point2D(predictedX, predictedY))
+        .velocity(new Point2D(predictedVx, predictedVy))
         .build();
   }
 
   @Override
   public void clearState(Particle particle) {
-    previousPosition = particle.position();
+    previousX = particle.position().getX();
+    previousY = particle.position().getY();
   }
 }
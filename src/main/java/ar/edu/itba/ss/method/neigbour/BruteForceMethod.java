@@ -2,12 +2,12 @@ package ar.edu.itba.ss.method.neigbour;
 
 import ar.edu.itba.ss.model.Neighbour;
 import ar.edu.itba.ss.model.Particle;
+import ar.edu.itba.ss.model.Point2D;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import javafx.geometry.Point2D;
 
 public class BruteForceMethod implements NeighbourFindingMethod {
 
@@ -0,0 +1,143 @@
+package ar.edu.itba.ss.method.neigbour;
+
+public class CellGrid {
+
+  // Half of the 3x3 block around a cell, so each pair of adjacent cells is visited once
+  static final int[][] DIRECTIONS = new int[][]{
+      {0, 0},     // CURRENT
+      {-1, 0},    // UP
+      {-1, +1},   // UP-RIGHT
+      {0, +1},    // RIGHT
+      {+1, +1}    // DOWN-RIGHT
+  };
+  static final int DIRECTIONS_ROW = 0;
+  static final int DIRECTIONS_COL = 1;
+
+  private final double originX;
+  private final double originY;
+  private final double width;
+  private final double height;
+  private final int cols;
+  private final int rows;
+  private final double cellWidth;
+  private final double cellHeight;
+
+  public CellGrid(final double originX, final double originY, final double width,
+      final double height, final double minCellLength) {
+    this(originX, originY, width, height, cellsAlong(width, minCellLength),
+        cellsAlong(height, minCellLength));
+  }
+
+  public CellGrid(final double originX, final double originY, final double width,
+      final double height, final int cols, final int rows) {
+    if (width <= 0 || height <= 0) {
+      throw new IllegalArgumentException("Grid dimensions have to be positive");
+    }
+
+    if (cols <= 0 || rows <= 0) {
+      throw new IllegalArgumentException("Grid needs at least one cell per side");
+    }
+
+    this.originX = originX;
+    this.originY = originY;
+    this.width = width;
+    this.height = height;
+    this.cols = cols;
+    this.rows = rows;
+    this.cellWidth = width / cols;
+    this.cellHeight = height / rows;
+  }
+
+  public static int cellsAlong(final double length, final double minCellLength) {
+    if (minCellLength <= 0) {
+      return 1;
+    }
+
+    return (int) Math.max(1, Math.min(Integer.MAX_VALUE, Math.floor(length / minCellLength)));
+  }
+
+  // Particles out of the grid are kept in the border cells
+  public int col(final double x) {
+    return clamp(Math.floor((x - originX) / cellWidth), cols);
+  }
+
+  public int row(final double y) {
+    return clamp(Math.floor((y - originY) / cellHeight), rows);
+  }
+
+  public int periodicCol(final double x) {
+    return Math.floorMod((int) Math.floor((x - originX) / cellWidth), cols);
+  }
+
+  public int periodicRow(final double y) {
+    return Math.floorMod((int) Math.floor((y - originY) / cellHeight), rows);
+  }
+
+  public double wrapX(final double x) {
+    final double wrapped = x - Math.floor((x - originX) / width) * width;
+    return wrapped >= originX + width ? originX : wrapped;
+  }
+
+  public double wrapY(final double y) {
+    final double wrapped = y - Math.floor((y - originY) / height) * height;
+    return wrapped >= originY + height ? originY : wrapped;
+  }
+
+  public int cell(final int row, final int col) {
+    return row * cols + col;
+  }
+
+  public int cells() {
+    return rows * cols;
+  }
+
+  public double getOriginX() {
+    return originX;
+  }
+
+  public double getOriginY() {
+    return originY;
+  }
+
+  public double getWidth() {
+    return width;
+  }
+
+  public double getHeight() {
+    return height;
+  }
+
+  public int getCols() {
+    return cols;
+  }
+
+  public int getRows() {
+    return rows;
+  }
+
+  public double getCellWidth() {
+    return cellWidth;
+  }
+
+  public double getCellHeight() {
+    return cellHeight;
+  }
+
+  // Shift of a coordinate seen from a neighbour cell that wrapped around a periodic side
+  static double coordinateCorrection(final int cellIndex, final int cells,
+      final double length) {
+    if (cellIndex < 0) {
+      return -length;
+    }
+
+    if (cellIndex >= cells) {
+      return length;
+    }
+
+    return 0;
+  }
+
+  private static int clamp(final double index, final int cells) {
+    return index < 0 ? 0 : index >= cells ? cells - 1 : (int) index;
+  }
+}
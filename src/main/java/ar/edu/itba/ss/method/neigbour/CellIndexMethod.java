@@ -2,6 +2,8 @@ package ar.edu.itba.ss.method.neigbour;
 
 import ar.edu.itba.ss.model.Neighbour;
 import ar.edu.itba.ss.model.Particle;
+import ar.edu.itba.ss.model.Point2D;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -10,28 +12,59 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
-import javafx.geometry.Point2D;
 
 public class CellIndexMethod implements NeighbourFindingMethod {
 
-  private final static int[][] DIRECTIONS = new int[][]{
-      {0, 0},     // CURRENT
-      {-1, 0},    // UP
-      {-1, +1},   // UP-RIGHT
-      {0, +1},    // RIGHT
-      {+1, +1}    // DOWN-RIGHT
-  };
-  private final static int DIRECTIONS_ROW = 0;
-  private final static int DIRECTIONS_COL = 1;
-
-  private final double l;
+  private final double originX;
+  private final double originY;
+  private final double width;
+  private final double height;
   private final boolean periodic;
-  private int m;
-  private double cellLength;
+  private final int subdivisions;
+  private CellGrid grid;
+  private CellStencil stencil;
+  private double stencilReach;
+  private int size;
+
+  private int[] owners = new int[0];
+  private boolean[] ghosts = new boolean[0];
+  private double[] copiesX = new double[0];
+  private double[] copiesY = new double[0];
+  private double[] copiesRadius = new double[0];
+  private int[] cellOfCopy = new int[0];
+  private int[] copyIndex = new int[0];
+  private int[] cellStart = new int[0];
+  private int[] cellFill = new int[0];
 
   public CellIndexMethod(final double l, final boolean periodic) {
-    this.l = l;
+    this(l, l, periodic);
+  }
+
+  public CellIndexMethod(final double width, final double height, final boolean periodic) {
+    this(0, 0, width, height, periodic);
+  }
+
+  public CellIndexMethod(final double originX, final double originY, final double width,
+      final double height, final boolean periodic) {
+    this(originX, originY, width, height, periodic, 1);
+  }
+
+  public CellIndexMethod(final double originX, final double originY, final double width,
+      final double height, final boolean periodic, final int subdivisions) {
+    if (subdivisions <= 0) {
+      throw new IllegalArgumentException("Subdivisions have to be positive");
+    }
+
+    this.originX = originX;
+    this.originY = originY;
+    this.width = width;
+    this.height = height;
     this.periodic = periodic;
+    this.subdivisions = subdivisions;
+  }
+
+  public static int cellsPerSide(final double l, final double maxRadius, final double rc) {
+    return CellGrid.cellsAlong(l, rc + 2 * maxRadius);
   }
 
   public Map<Particle, Set<Neighbour>> apply(final List<Particle> particles, final double maxRadius,
@@ -41,12 +74,25 @@ public class CellIndexMethod implements NeighbourFindingMethod {
       throw new IllegalArgumentException("Invalid max radius");
     }
 
-    this.m = (int) Math.floor(l / (rc + 2 * maxRadius));
-    this.cellLength = l / m;
+    final double reach = rc + 2 * maxRadius;
+    final double minCellLength = reach / subdivisions;
+    if (grid == null || grid.getCols() != CellGrid.cellsAlong(width, minCellLength)
+        || grid.getRows() != CellGrid.cellsAlong(height, minCellLength)) {
+      grid = new CellGrid(originX, originY, width, height, minCellLength);
+      stencil = null;
+    }
+
+    // The stencil only depends on the cell size and the reach
+    if (stencil == null || reach != stencilReach) {
+      stencil = new CellStencil(grid.getCellWidth(), grid.getCellHeight(), reach);
+      stencilReach = reach;
+    }
 
-    if (rc > cellLength) {
+    // Past half the box a pair would meet through more than one image
+    if (periodic && (2 * reach >= width || 2 * reach >= height
+        || !stencil.fits(grid.getRows(), grid.getCols()))) {
       throw new IllegalArgumentException(
-          "Cutoff distance has to be less than cell length (" + cellLength + ").");
+          "Cutoff distance has to be less than half the box (" + width + ", " + height + ").");
     }
 
     final Map<Particle, Set<Neighbour>> neighboursParticles = new HashMap<>();
@@ -54,9 +100,14 @@ public class CellIndexMethod implements NeighbourFindingMethod {
       neighboursParticles.put(particle, new HashSet<>());
     }
 
+    if (periodic) {
+      addNeighboursWithHalo(neighboursParticles, particles, rc);
+      return neighboursParticles;
+    }
+
     final List<Particle>[][] matrix = createMatrix(particles);
-    for (int row = 0; row < m; row++) {
-      for (int col = 0; col < m; col++) {
+    for (int row = 0; row < grid.getRows(); row++) {
+      for (int col = 0; col < grid.getCols(); col++) {
         if (matrix[row][col] != null) {
           addNeighbours(neighboursParticles, matrix, row, col, rc);
         }
@@ -78,13 +129,14 @@ public class CellIndexMethod implements NeighbourFindingMethod {
     return apply(particles, maxParticle.get().radius(), rc);
   }
 
+  @SuppressWarnings("unchecked")
   private List<Particle>[][] createMatrix(final List<Particle> particles) {
-    final List<Particle>[][] matrix = new List[m][m];
+    final List<Particle>[][] matrix = new List[grid.getRows()][grid.getCols()];
 
     for (final Particle particle : particles) {
       final Point2D position = particle.position();
-      final int row = (int) (position.getY() / cellLength);
-      final int col = (int) (position.getX() / cellLength);
+      final int row = grid.row(position.getY());
+      final int col = grid.col(position.getX());
 
       if (matrix[row][col] == null) {
         matrix[row][col] = new LinkedList<>();
@@ -101,37 +153,32 @@ public class CellIndexMethod implements NeighbourFindingMethod {
       final double rc) {
 
     final List<Particle> currentCell = matrix[currentRow][currentCol];
+    final int m = grid.getRows();
+    final int n = grid.getCols();
 
-    for (final int[] direction : DIRECTIONS) {
-      final int neighbourRow = currentRow + direction[DIRECTIONS_ROW];
-      final int neighbourCol = currentCol + direction[DIRECTIONS_COL];
+    for (int k = 0; k < stencil.size(); k++) {
+      final int neighbourRow = currentRow + stencil.row(k);
+      final int neighbourCol = currentCol + stencil.col(k);
 
-      // Skip if not periodic and row/col are out of bounds
-      if (periodic || (neighbourRow >= 0 && neighbourRow < m && neighbourCol >= 0
-          && neighbourCol < m)) {
-
-        final List<Particle> neighbourCell = matrix[Math.floorMod(neighbourRow, m)][Math
-            .floorMod(neighbourCol, m)];
+      // Skip if row/col are out of bounds
+      if (neighbourRow >= 0 && neighbourRow < m && neighbourCol >= 0 && neighbourCol < n) {
+        final List<Particle> neighbourCell = matrix[neighbourRow][neighbourCol];
 
         if (neighbourCell != null) {
-          addNeighboursFromCell(neighbours, currentCell, neighbourCell, neighbourRow, neighbourCol,
-              rc);
+          addNeighboursFromCell(neighbours, currentCell, neighbourCell, rc);
         }
       }
     }
   }
 
   private void addNeighboursFromCell(final Map<Particle, Set<Neighbour>> neighbours,
-      final List<Particle> currentCell, final List<Particle> neighbourCell, final int neighbourRow,
-      final int neighbourCol, final double rc) {
+      final List<Particle> currentCell, final List<Particle> neighbourCell, final double rc) {
 
     for (final Particle particle1 : currentCell) {
       for (final Particle particle2 : neighbourCell) {
         if (!particle1.equals(particle2)) {
           final Point2D point1 = particle1.position();
-          // Remember: col is x and row is y
-          final Point2D point2 = particle2.position()
-              .add(coordinateCorrection(neighbourCol), coordinateCorrection(neighbourRow));
+          final Point2D point2 = particle2.position();
           final double distance = point1.distance(point2) - particle1.radius() - particle2.radius();
 
           if (distance <= rc) {
@@ -143,15 +190,141 @@ public class CellIndexMethod implements NeighbourFindingMethod {
     }
   }
 
-  private double coordinateCorrection(final int cellIndex) {
-    if (cellIndex < 0) {
-      return -l;
+  // Particles near the border get ghost copies on the opposite side, so the search over the
+  // grid extended with a halo of cells needs no coordinate correction
+  private void addNeighboursWithHalo(final Map<Particle, Set<Neighbour>> neighbours,
+      final List<Particle> particles, final double rc) {
+
+    final double haloWidth = stencil.getRingsX() * grid.getCellWidth();
+    final double haloHeight = stencil.getRingsY() * grid.getCellHeight();
+    final CellGrid extended = new CellGrid(originX - haloWidth, originY - haloHeight,
+        width + 2 * haloWidth, height + 2 * haloHeight,
+        grid.getCols() + 2 * stencil.getRingsX(), grid.getRows() + 2 * stencil.getRingsY());
+
+    final Particle[] real = particles.toArray(new Particle[0]);
+    size = 0;
+    for (int i = 0; i < real.length; i++) {
+      final double x = grid.wrapX(real[i].position().getX());
+      final double y = grid.wrapY(real[i].position().getY());
+
+      for (int shiftX = -1; shiftX <= 1; shiftX++) {
+        for (int shiftY = -1; shiftY <= 1; shiftY++) {
+          if (isInHalo(x, shiftX, originX, width, haloWidth)
+              && isInHalo(y, shiftY, originY, height, haloHeight)) {
+            addCopy(i, x + shiftX * width, y + shiftY * height, real[i].radius(),
+                shiftX != 0 || shiftY != 0);
+          }
+        }
+      }
+    }
+
+    sortByCell(extended);
+
+    for (int row = 0; row < extended.getRows(); row++) {
+      for (int col = 0; col < extended.getCols(); col++) {
+        final int currentCell = extended.cell(row, col);
+
+        for (int k = 0; k < stencil.size(); k++) {
+          final int neighbourRow = row + stencil.row(k);
+          final int neighbourCol = col + stencil.col(k);
+
+          if (neighbourRow >= 0 && neighbourRow < extended.getRows() && neighbourCol >= 0
+              && neighbourCol < extended.getCols()) {
+            addNeighboursFromCopies(neighbours, real, currentCell,
+                extended.cell(neighbourRow, neighbourCol), rc);
+          }
+        }
+      }
+    }
+  }
+
+  private static boolean isInHalo(final double position, final int shift, final double origin,
+      final double length, final double halo) {
+    if (shift > 0) {
+      return position < origin + halo;
+    }
+
+    if (shift < 0) {
+      return position >= origin + length - halo;
+    }
+
+    return true;
+  }
+
+  private void addCopy(final int owner, final double x, final double y, final double radius,
+      final boolean ghost) {
+    if (size == owners.length) {
+      final int capacity = Math.max(16, size * 2);
+      owners = Arrays.copyOf(owners, capacity);
+      ghosts = Arrays.copyOf(ghosts, capacity);
+      copiesX = Arrays.copyOf(copiesX, capacity);
+      copiesY = Arrays.copyOf(copiesY, capacity);
+      copiesRadius = Arrays.copyOf(copiesRadius, capacity);
+      cellOfCopy = Arrays.copyOf(cellOfCopy, capacity);
+      copyIndex = Arrays.copyOf(copyIndex, capacity);
+    }
+
+    owners[size] = owner;
+    ghosts[size] = ghost;
+    copiesX[size] = x;
+    copiesY[size] = y;
+    copiesRadius[size] = radius;
+    size++;
+  }
+
+  private void sortByCell(final CellGrid extended) {
+    final int cells = extended.cells();
+    if (cellStart.length < cells + 1) {
+      cellStart = new int[cells + 1];
+      cellFill = new int[cells];
+    }
+
+    Arrays.fill(cellStart, 0, cells + 1, 0);
+
+    for (int copy = 0; copy < size; copy++) {
+      cellOfCopy[copy] = extended.cell(extended.row(copiesY[copy]), extended.col(copiesX[copy]));
+      cellStart[cellOfCopy[copy] + 1]++;
     }
 
-    if (cellIndex >= m) {
-      return l;
+    for (int cell = 0; cell < cells; cell++) {
+      cellStart[cell + 1] += cellStart[cell];
+      cellFill[cell] = cellStart[cell];
     }
 
-    return 0;
+    for (int copy = 0; copy < size; copy++) {
+      copyIndex[cellFill[cellOfCopy[copy]]++] = copy;
+    }
+  }
+
+  private void addNeighboursFromCopies(final Map<Particle, Set<Neighbour>> neighbours,
+      final Particle[] real, final int currentCell, final int neighbourCell, final double rc) {
+
+    for (int a = cellStart[currentCell]; a < cellStart[currentCell + 1]; a++) {
+      final int copy1 = copyIndex[a];
+      final int first = neighbourCell == currentCell ? a + 1 : cellStart[neighbourCell];
+
+      for (int b = first; b < cellStart[neighbourCell + 1]; b++) {
+        final int copy2 = copyIndex[b];
+        final int owner1 = owners[copy1];
+        final int owner2 = owners[copy2];
+        final boolean isReal1 = !ghosts[copy1];
+        final boolean isReal2 = !ghosts[copy2];
+
+        // A pair across the border shows up twice, once from each side: keep the one whose real
+        // particle has the lower index
+        if (owner1 != owner2 && (isReal1 && isReal2 || isReal1 && owner1 < owner2
+            || isReal2 && owner2 < owner1)) {
+          final double dx = copiesX[copy2] - copiesX[copy1];
+          final double dy = copiesY[copy2] - copiesY[copy1];
+          final double distance = Math.sqrt(dx * dx + dy * dy) - copiesRadius[copy1]
+              - copiesRadius[copy2];
+
+          if (distance <= rc) {
+            neighbours.get(real[owner1]).add(new Neighbour(real[owner2], distance));
+            neighbours.get(real[owner2]).add(new Neighbour(real[owner1], distance));
+          }
+        }
+      }
+    }
   }
 }
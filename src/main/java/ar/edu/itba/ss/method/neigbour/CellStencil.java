@@ -0,0 +1,76 @@
+package ar.edu.itba.ss.method.neigbour;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class CellStencil {
+
+  private final int[] rows;
+  private final int[] cols;
+  private final int ringsX;
+  private final int ringsY;
+
+  // Half-shell of cell offsets: the current cell, then every offset with a positive column or
+  // a null column and a negative row. Offsets whose closest points are farther than reach are
+  // pruned.
+  public CellStencil(final double cellWidth, final double cellHeight, final double reach) {
+    if (cellWidth <= 0 || cellHeight <= 0) {
+      throw new IllegalArgumentException("Cell dimensions have to be positive");
+    }
+
+    this.ringsX = Math.max(1, (int) Math.ceil(reach / cellWidth));
+    this.ringsY = Math.max(1, (int) Math.ceil(reach / cellHeight));
+
+    final List<int[]> offsets = new ArrayList<>();
+    offsets.add(new int[]{0, 0});
+
+    for (int col = 0; col <= ringsX; col++) {
+      for (int row = -ringsY; row <= ringsY; row++) {
+        if ((col > 0 || row < 0) && isReachable(row, col, cellWidth, cellHeight, reach)) {
+          offsets.add(new int[]{row, col});
+        }
+      }
+    }
+
+    this.rows = new int[offsets.size()];
+    this.cols = new int[offsets.size()];
+    for (int k = 0; k < offsets.size(); k++) {
+      rows[k] = offsets.get(k)[0];
+      cols[k] = offsets.get(k)[1];
+    }
+  }
+
+  private static boolean isReachable(final int row, final int col, final double cellWidth,
+      final double cellHeight, final double reach) {
+    final double gapX = Math.max(0, Math.abs(col) - 1) * cellWidth;
+    final double gapY = Math.max(0, Math.abs(row) - 1) * cellHeight;
+
+    return gapX * gapX + gapY * gapY <= reach * reach;
+  }
+
+  public int size() {
+    return rows.length;
+  }
+
+  public int row(final int k) {
+    return rows[k];
+  }
+
+  public int col(final int k) {
+    return cols[k];
+  }
+
+  public int getRingsX() {
+    return ringsX;
+  }
+
+  public int getRingsY() {
+    return ringsY;
+  }
+
+  // A periodic grid narrower than the stencil would visit the same cell image twice
+  public boolean fits(final int gridRows, final int gridCols) {
+    return (ringsX == 1 && ringsY == 1)
+        || (gridCols >= 2 * ringsX + 1 && gridRows >= 2 * ringsY + 1);
+  }
+}
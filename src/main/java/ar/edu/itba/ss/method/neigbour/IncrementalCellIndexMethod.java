@@ -0,0 +1,222 @@
+package ar.edu.itba.ss.method.neigbour;
+
+import ar.edu.itba.ss.model.Neighbour;
+import ar.edu.itba.ss.model.Particle;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class IncrementalCellIndexMethod implements NeighbourFindingMethod {
+
+  private final static int NONE = -1;
+
+  private final double originX;
+  private final double originY;
+  private final double width;
+  private final double height;
+  private final boolean periodic;
+  private CellGrid grid;
+  private double gridCellLength;
+
+  private Particle[] current = new Particle[0];
+  private double[] x = new double[0];
+  private double[] y = new double[0];
+  private int[] cellOfSlot = new int[0];
+  private int[] next = new int[0];
+  private int[] previous = new int[0];
+  private int[] head = new int[0];
+  private int crossings;
+
+  public IncrementalCellIndexMethod(final double width, final double height,
+      final boolean periodic) {
+    this(0, 0, width, height, periodic);
+  }
+
+  public IncrementalCellIndexMethod(final double originX, final double originY,
+      final double width, final double height, final boolean periodic) {
+    this.originX = originX;
+    this.originY = originY;
+    this.width = width;
+    this.height = height;
+    this.periodic = periodic;
+    this.gridCellLength = Double.NaN;
+  }
+
+  public Map<Particle, Set<Neighbour>> apply(final List<Particle> particles, final double maxRadius,
+      final double rc) {
+
+    if (maxRadius < 0) {
+      throw new IllegalArgumentException("Invalid max radius");
+    }
+
+    if (rc + 2 * maxRadius != gridCellLength || !update(particles)) {
+      rebuild(particles, rc + 2 * maxRadius);
+    }
+
+    final Map<Particle, Set<Neighbour>> neighbours = new HashMap<>();
+    for (final Particle particle : particles) {
+      neighbours.put(particle, new HashSet<>());
+    }
+
+    for (int row = 0; row < grid.getRows(); row++) {
+      for (int col = 0; col < grid.getCols(); col++) {
+        if (head[grid.cell(row, col)] != NONE) {
+          addNeighbours(neighbours, row, col, rc);
+        }
+      }
+    }
+
+    return neighbours;
+  }
+
+  @Override
+  public Map<Particle, Set<Neighbour>> apply(final List<Particle> particles, final double rc) {
+    final double maxRadius = particles.stream()
+        .mapToDouble(Particle::radius)
+        .max().orElseThrow(() -> new IllegalArgumentException("Invalid particles"));
+
+    return apply(particles, maxRadius, rc);
+  }
+
+  public int getCrossings() {
+    return crossings;
+  }
+
+  // Slots follow the list position, so only the particles that changed their cell are moved
+  // between lists. A different number of particles needs a rebuild.
+  private boolean update(final List<Particle> particles) {
+    if (particles.size() != current.length) {
+      return false;
+    }
+
+    crossings = 0;
+    int slot = 0;
+    for (final Particle particle : particles) {
+      current[slot] = particle;
+      locate(slot);
+
+      final int cell = cellOf(slot);
+      if (cell != cellOfSlot[slot]) {
+        unlink(slot);
+        link(slot, cell);
+        crossings++;
+      }
+
+      slot++;
+    }
+
+    return true;
+  }
+
+  private void rebuild(final List<Particle> particles, final double minCellLength) {
+    grid = new CellGrid(originX, originY, width, height, minCellLength);
+    gridCellLength = minCellLength;
+
+    if (periodic && (grid.getCols() < 3 || grid.getRows() < 3)) {
+      throw new IllegalArgumentException("Periodic grid needs at least 3 cells per side");
+    }
+
+    final int n = particles.size();
+    current = particles.toArray(new Particle[0]);
+    x = new double[n];
+    y = new double[n];
+    cellOfSlot = new int[n];
+    next = new int[n];
+    previous = new int[n];
+    head = new int[grid.cells()];
+    Arrays.fill(head, NONE);
+
+    for (int slot = 0; slot < n; slot++) {
+      locate(slot);
+      link(slot, cellOf(slot));
+    }
+
+    crossings = n;
+  }
+
+  private void locate(final int slot) {
+    x[slot] = periodic ? grid.wrapX(current[slot].position().getX())
+        : current[slot].position().getX();
+    y[slot] = periodic ? grid.wrapY(current[slot].position().getY())
+        : current[slot].position().getY();
+  }
+
+  private int cellOf(final int slot) {
+    return grid.cell(grid.row(y[slot]), grid.col(x[slot]));
+  }
+
+  private void link(final int slot, final int cell) {
+    cellOfSlot[slot] = cell;
+    previous[slot] = NONE;
+    next[slot] = head[cell];
+
+    if (head[cell] != NONE) {
+      previous[head[cell]] = slot;
+    }
+
+    head[cell] = slot;
+  }
+
+  private void unlink(final int slot) {
+    if (previous[slot] != NONE) {
+      next[previous[slot]] = next[slot];
+    } else {
+      head[cellOfSlot[slot]] = next[slot];
+    }
+
+    if (next[slot] != NONE) {
+      previous[next[slot]] = previous[slot];
+    }
+  }
+
+  private void addNeighbours(final Map<Particle, Set<Neighbour>> neighbours,
+      final int currentRow, final int currentCol, final double rc) {
+
+    final int currentCell = grid.cell(currentRow, currentCol);
+    final int m = grid.getRows();
+    final int n = grid.getCols();
+
+    for (final int[] direction : CellGrid.DIRECTIONS) {
+      final int neighbourRow = currentRow + direction[CellGrid.DIRECTIONS_ROW];
+      final int neighbourCol = currentCol + direction[CellGrid.DIRECTIONS_COL];
+
+      // Skip if not periodic and row/col are out of bounds
+      if (periodic || (neighbourRow >= 0 && neighbourRow < m && neighbourCol >= 0
+          && neighbourCol < n)) {
+
+        final int neighbourCell = grid.cell(Math.floorMod(neighbourRow, m),
+            Math.floorMod(neighbourCol, n));
+        // Remember: col is x and row is y
+        final double correctionX = CellGrid.coordinateCorrection(neighbourCol, n, width);
+        final double correctionY = CellGrid.coordinateCorrection(neighbourRow, m, height);
+
+        for (int slot1 = head[currentCell]; slot1 != NONE; slot1 = next[slot1]) {
+          final int first = neighbourCell == currentCell ? next[slot1] : head[neighbourCell];
+
+          for (int slot2 = first; slot2 != NONE; slot2 = next[slot2]) {
+            addIfNeighbours(neighbours, slot1, slot2, correctionX, correctionY, rc);
+          }
+        }
+      }
+    }
+  }
+
+  private void addIfNeighbours(final Map<Particle, Set<Neighbour>> neighbours, final int slot1,
+      final int slot2, final double correctionX, final double correctionY, final double rc) {
+
+    final Particle particle1 = current[slot1];
+    final Particle particle2 = current[slot2];
+    final double dx = x[slot2] + correctionX - x[slot1];
+    final double dy = y[slot2] + correctionY - y[slot1];
+    final double distance = Math.sqrt(dx * dx + dy * dy) - particle1.radius()
+        - particle2.radius();
+
+    if (distance <= rc) {
+      neighbours.get(particle1).add(new Neighbour(particle2, distance));
+      neighbours.get(particle2).add(new Neighbour(particle1, distance));
+    }
+  }
+}
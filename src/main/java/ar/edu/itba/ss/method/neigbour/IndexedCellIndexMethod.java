@@ -0,0 +1,334 @@
+package ar.edu.itba.ss.method.neigbour;
+
+import ar.edu.itba.ss.model.Neighbour;
+import ar.edu.itba.ss.model.NeighbourList;
+import ar.edu.itba.ss.model.NeighbourPairs;
+import ar.edu.itba.ss.model.Particle;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+public class IndexedCellIndexMethod implements NeighbourFindingMethod,
+    IndexedNeighbourFindingMethod {
+
+  private final static int BANDS_PER_THREAD = 4;
+
+  private final double originX;
+  private final double originY;
+  private final double width;
+  private final double height;
+  private final boolean periodic;
+  private final int subdivisions;
+  private final NeighbourPairs pairs;
+  private final ForkJoinPool pool;
+  private final NeighbourPairs[] bandPairs;
+  private CellGrid grid;
+  private CellStencil stencil;
+  private double stencilReach;
+
+  private int[] cellStart = new int[0];
+  private int[] cellFill = new int[0];
+  private int[] cellOfParticle = new int[0];
+  private int[] particleIndex = new int[0];
+  private double[] x = new double[0];
+  private double[] y = new double[0];
+  private double[] radius = new double[0];
+  private double[] wrappedX = new double[0];
+  private double[] wrappedY = new double[0];
+
+  public IndexedCellIndexMethod(final double l, final boolean periodic) {
+    this(l, l, periodic);
+  }
+
+  public IndexedCellIndexMethod(final double width, final double height,
+      final boolean periodic) {
+    this(0, 0, width, height, periodic);
+  }
+
+  public IndexedCellIndexMethod(final double originX, final double originY, final double width,
+      final double height, final boolean periodic) {
+    this(originX, originY, width, height, periodic, 1);
+  }
+
+  public IndexedCellIndexMethod(final double originX, final double originY, final double width,
+      final double height, final boolean periodic, final int threads) {
+    this(originX, originY, width, height, periodic, threads, 1);
+  }
+
+  public IndexedCellIndexMethod(final double originX, final double originY, final double width,
+      final double height, final boolean periodic, final int threads, final int subdivisions) {
+    if (threads <= 0) {
+      throw new IllegalArgumentException("Threads have to be positive");
+    }
+
+    if (subdivisions <= 0) {
+      throw new IllegalArgumentException("Subdivisions have to be positive");
+    }
+
+    this.originX = originX;
+    this.originY = originY;
+    this.width = width;
+    this.height = height;
+    this.periodic = periodic;
+    this.subdivisions = subdivisions;
+    this.pairs = new NeighbourPairs();
+    this.pool = threads > 1 ? new ForkJoinPool(threads) : null;
+    this.bandPairs = new NeighbourPairs[threads > 1 ? threads * BANDS_PER_THREAD : 0];
+    for (int band = 0; band < bandPairs.length; band++) {
+      bandPairs[band] = new NeighbourPairs();
+    }
+  }
+
+  // Stops the worker threads of the fork/join mode, the method can't be applied after this
+  public void shutdown() {
+    if (pool != null) {
+      pool.shutdown();
+    }
+  }
+
+  public NeighbourPairs apply(final double[] x, final double[] y, final double[] radius,
+      final int n, final double maxRadius, final double rc) {
+
+    if (maxRadius < 0) {
+      throw new IllegalArgumentException("Invalid max radius");
+    }
+
+    final double reach = rc + 2 * maxRadius;
+    final double minCellLength = reach / subdivisions;
+    if (grid == null || grid.getCols() != CellGrid.cellsAlong(width, minCellLength)
+        || grid.getRows() != CellGrid.cellsAlong(height, minCellLength)) {
+      grid = new CellGrid(originX, originY, width, height, minCellLength);
+      stencil = null;
+    }
+
+    // The stencil only depends on the cell size and the reach
+    if (stencil == null || reach != stencilReach) {
+      stencil = new CellStencil(grid.getCellWidth(), grid.getCellHeight(), reach);
+      stencilReach = reach;
+    }
+
+    if (periodic && (grid.getCols() < 3 || grid.getRows() < 3
+        || !stencil.fits(grid.getRows(), grid.getCols()))) {
+      throw new IllegalArgumentException("Periodic grid is too small for the cutoff distance");
+    }
+
+    final double[] cellX = periodic ? wrapped(x, n, true) : x;
+    final double[] cellY = periodic ? wrapped(y, n, false) : y;
+    sortByCell(cellX, cellY, n);
+
+    pairs.clear();
+    if (pool == null) {
+      addNeighboursInRows(pairs, cellX, cellY, radius, 0, grid.getRows(), rc);
+      return pairs;
+    }
+
+    // Each band of rows fills its own buffer, which are then merged in row order
+    final int rowsPerBand = (grid.getRows() + bandPairs.length - 1) / bandPairs.length;
+    pool.submit(() -> IntStream.range(0, bandPairs.length).parallel().forEach(band -> {
+      bandPairs[band].clear();
+      addNeighboursInRows(bandPairs[band], cellX, cellY, radius, band * rowsPerBand,
+          Math.min(grid.getRows(), (band + 1) * rowsPerBand), rc);
+    })).join();
+
+    for (final NeighbourPairs band : bandPairs) {
+      pairs.addAll(band);
+    }
+
+    return pairs;
+  }
+
+  @Override
+  public NeighbourPairs apply(final double[] x, final double[] y, final double[] radius,
+      final int n, final double rc) {
+    return apply(x, y, radius, n, IndexedNeighbourFindingMethod.maxRadius(radius, n), rc);
+  }
+
+  public Map<Particle, Set<Neighbour>> apply(final List<Particle> particles, final double maxRadius,
+      final double rc) {
+
+    return applyToParticles(particles, maxRadius, rc).toMap(particles);
+  }
+
+  @Override
+  public Map<Particle, Set<Neighbour>> apply(final List<Particle> particles, final double rc) {
+    return apply(particles, maxRadius(particles), rc);
+  }
+
+  public NeighbourList applyCompressed(final List<Particle> particles, final double maxRadius,
+      final double rc) {
+
+    return NeighbourList.fromPairs(applyToParticles(particles, maxRadius, rc), particles.size());
+  }
+
+  @Override
+  public NeighbourList applyCompressed(final List<Particle> particles, final double rc) {
+    return applyCompressed(particles, maxRadius(particles), rc);
+  }
+
+  private NeighbourPairs applyToParticles(final List<Particle> particles, final double maxRadius,
+      final double rc) {
+
+    final int n = particles.size();
+    if (x.length < n) {
+      x = new double[n];
+      y = new double[n];
+      radius = new double[n];
+    }
+
+    int i = 0;
+    for (final Particle particle : particles) {
+      x[i] = particle.position().getX();
+      y[i] = particle.position().getY();
+      radius[i] = particle.radius();
+      i++;
+    }
+
+    return apply(x, y, radius, n, maxRadius, rc);
+  }
+
+  private static double maxRadius(final List<Particle> particles) {
+    return particles.stream()
+        .mapToDouble(Particle::radius)
+        .max().orElseThrow(() -> new IllegalArgumentException("Invalid particles"));
+  }
+
+  private double[] wrapped(final double[] coordinates, final int n, final boolean horizontal) {
+    if (wrappedX.length < n) {
+      wrappedX = new double[n];
+      wrappedY = new double[n];
+    }
+
+    final double[] wrapped = horizontal ? wrappedX : wrappedY;
+    for (int i = 0; i < n; i++) {
+      wrapped[i] = horizontal ? grid.wrapX(coordinates[i]) : grid.wrapY(coordinates[i]);
+    }
+
+    return wrapped;
+  }
+
+  private void sortByCell(final double[] x, final double[] y, final int n) {
+    final int cells = grid.cells();
+    if (cellStart.length < cells + 1) {
+      cellStart = new int[cells + 1];
+      cellFill = new int[cells];
+    }
+    if (particleIndex.length < n) {
+      particleIndex = new int[n];
+      cellOfParticle = new int[n];
+    }
+
+    Arrays.fill(cellStart, 0, cells + 1, 0);
+
+    if (pool == null) {
+      for (int i = 0; i < n; i++) {
+        cellOfParticle[i] = grid.cell(grid.row(y[i]), grid.col(x[i]));
+      }
+    } else {
+      pool.submit(() -> IntStream.range(0, n).parallel()
+          .forEach(i -> cellOfParticle[i] = grid.cell(grid.row(y[i]), grid.col(x[i]))))
+          .join();
+    }
+
+    for (int i = 0; i < n; i++) {
+      cellStart[cellOfParticle[i] + 1]++;
+    }
+
+    for (int cell = 0; cell < cells; cell++) {
+      cellStart[cell + 1] += cellStart[cell];
+      cellFill[cell] = cellStart[cell];
+    }
+
+    for (int i = 0; i < n; i++) {
+      particleIndex[cellFill[cellOfParticle[i]]++] = i;
+    }
+  }
+
+  private void addNeighboursInRows(final NeighbourPairs pairs, final double[] x,
+      final double[] y, final double[] radius, final int fromRow, final int toRow,
+      final double rc) {
+
+    for (int row = fromRow; row < toRow; row++) {
+      for (int col = 0; col < grid.getCols(); col++) {
+        final int cell = grid.cell(row, col);
+
+        if (cellStart[cell] != cellStart[cell + 1]) {
+          addNeighbours(pairs, x, y, radius, row, col, rc);
+        }
+      }
+    }
+  }
+
+  private void addNeighbours(final NeighbourPairs pairs, final double[] x, final double[] y,
+      final double[] radius, final int currentRow, final int currentCol, final double rc) {
+
+    final int currentCell = grid.cell(currentRow, currentCol);
+    final int m = grid.getRows();
+    final int n = grid.getCols();
+
+    for (int k = 0; k < stencil.size(); k++) {
+      final int neighbourRow = currentRow + stencil.row(k);
+      final int neighbourCol = currentCol + stencil.col(k);
+
+      // Skip if not periodic and row/col are out of bounds
+      if (periodic || (neighbourRow >= 0 && neighbourRow < m && neighbourCol >= 0
+          && neighbourCol < n)) {
+
+        final int neighbourCell = grid.cell(Math.floorMod(neighbourRow, m),
+            Math.floorMod(neighbourCol, n));
+
+        if (neighbourCell == currentCell) {
+          addNeighboursInCell(pairs, x, y, radius, currentCell, rc);
+        } else {
+          // Remember: col is x and row is y
+          addNeighboursFromCell(pairs, x, y, radius, currentCell, neighbourCell,
+              CellGrid.coordinateCorrection(neighbourCol, n, width),
+              CellGrid.coordinateCorrection(neighbourRow, m, height), rc);
+        }
+      }
+    }
+  }
+
+  private void addNeighboursInCell(final NeighbourPairs pairs, final double[] x,
+      final double[] y, final double[] radius, final int cell, final double rc) {
+
+    for (int a = cellStart[cell]; a < cellStart[cell + 1]; a++) {
+      final int particle1 = particleIndex[a];
+
+      for (int b = a + 1; b < cellStart[cell + 1]; b++) {
+        final int particle2 = particleIndex[b];
+        final double dx = x[particle2] - x[particle1];
+        final double dy = y[particle2] - y[particle1];
+        final double distance = Math.sqrt(dx * dx + dy * dy) - radius[particle1]
+            - radius[particle2];
+
+        if (distance <= rc) {
+          pairs.add(particle1, particle2, distance);
+        }
+      }
+    }
+  }
+
+  private void addNeighboursFromCell(final NeighbourPairs pairs, final double[] x,
+      final double[] y, final double[] radius, final int currentCell, final int neighbourCell,
+      final double correctionX, final double correctionY, final double rc) {
+
+    for (int a = cellStart[currentCell]; a < cellStart[currentCell + 1]; a++) {
+      final int particle1 = particleIndex[a];
+
+      for (int b = cellStart[neighbourCell]; b < cellStart[neighbourCell + 1]; b++) {
+        final int particle2 = particleIndex[b];
+        final double dx = x[particle2] + correctionX - x[particle1];
+        final double dy = y[particle2] + correctionY - y[particle1];
+        final double distance = Math.sqrt(dx * dx + dy * dy) - radius[particle1]
+            - radius[particle2];
+
+        if (distance <= rc) {
+          pairs.add(particle1, particle2, distance);
+        }
+      }
+    }
+  }
+}
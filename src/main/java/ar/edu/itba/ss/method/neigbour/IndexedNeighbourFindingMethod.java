@@ -0,0 +1,22 @@
+package ar.edu.itba.ss.method.neigbour;
+
+import ar.edu.itba.ss.model.NeighbourPairs;
+
+public interface IndexedNeighbourFindingMethod {
+
+  NeighbourPairs apply(final double[] x, final double[] y, final double[] radius, final int n,
+      final double rc);
+
+  static double maxRadius(final double[] radius, final int n) {
+    if (n == 0) {
+      throw new IllegalArgumentException("Invalid particles");
+    }
+
+    double maxRadius = radius[0];
+    for (int i = 1; i < n; i++) {
+      maxRadius = Math.max(maxRadius, radius[i]);
+    }
+
+    return maxRadius;
+  }
+}
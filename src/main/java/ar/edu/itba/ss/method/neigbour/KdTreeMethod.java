@@ -0,0 +1,261 @@
+package ar.edu.itba.ss.method.neigbour;
+
+import ar.edu.itba.ss.model.Neighbour;
+import ar.edu.itba.ss.model.NeighbourList;
+import ar.edu.itba.ss.model.NeighbourPairs;
+import ar.edu.itba.ss.model.Particle;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class KdTreeMethod implements NeighbourFindingMethod,
+    IndexedNeighbourFindingMethod {
+
+  private final static int DEFAULT_LEAF_SIZE = 8;
+  private final static int DEFAULT_REBUILD_INTERVAL = 10;
+  private final static int LEAF = -1;
+
+  private final int leafSize;
+  private final int rebuildInterval;
+  private final NeighbourPairs pairs;
+  private int calls;
+  private int nodes;
+  private int particles = -1;
+
+  private int[] order = new int[0];
+  private int[] from = new int[0];
+  private int[] to = new int[0];
+  private int[] left = new int[0];
+  private int[] right = new int[0];
+  private double[] minX = new double[0];
+  private double[] minY = new double[0];
+  private double[] maxX = new double[0];
+  private double[] maxY = new double[0];
+  private double[] maxRadius = new double[0];
+  private int[] stack = new int[0];
+  private double[] x = new double[0];
+  private double[] y = new double[0];
+  private double[] radius = new double[0];
+
+  public KdTreeMethod() {
+    this(DEFAULT_LEAF_SIZE, DEFAULT_REBUILD_INTERVAL);
+  }
+
+  public KdTreeMethod(final int leafSize, final int rebuildInterval) {
+    if (leafSize <= 0) {
+      throw new IllegalArgumentException("Leaf size has to be positive");
+    }
+
+    if (rebuildInterval <= 0) {
+      throw new IllegalArgumentException("Rebuild interval has to be positive");
+    }
+
+    this.leafSize = leafSize;
+    this.rebuildInterval = rebuildInterval;
+    this.pairs = new NeighbourPairs();
+  }
+
+  // Between rebuilds the tree keeps its shape and only its bounding boxes are refitted
+  @Override
+  public NeighbourPairs apply(final double[] x, final double[] y, final double[] radius,
+      final int n, final double rc) {
+
+    if (n != particles || calls % rebuildInterval == 0) {
+      build(x, y, radius, n);
+    } else {
+      refit(x, y, radius, 0);
+    }
+    calls++;
+
+    pairs.clear();
+    for (int i = 0; i < n; i++) {
+      addNeighbours(x, y, radius, i, rc);
+    }
+
+    return pairs;
+  }
+
+  @Override
+  public Map<Particle, Set<Neighbour>> apply(final List<Particle> particles, final double rc) {
+    return applyToParticles(particles, rc).toMap(particles);
+  }
+
+  @Override
+  public NeighbourList applyCompressed(final List<Particle> particles, final double rc) {
+    return NeighbourList.fromPairs(applyToParticles(particles, rc), particles.size());
+  }
+
+  private NeighbourPairs applyToParticles(final List<Particle> particles, final double rc) {
+    final int n = particles.size();
+    if (x.length < n) {
+      x = new double[n];
+      y = new double[n];
+      radius = new double[n];
+    }
+
+    int i = 0;
+    for (final Particle particle : particles) {
+      x[i] = particle.position().getX();
+      y[i] = particle.position().getY();
+      radius[i] = particle.radius();
+      i++;
+    }
+
+    return apply(x, y, radius, n, rc);
+  }
+
+  private void build(final double[] x, final double[] y, final double[] radius, final int n) {
+    particles = n;
+    if (order.length < n) {
+      order = new int[n];
+    }
+    for (int i = 0; i < n; i++) {
+      order[i] = i;
+    }
+
+    final int capacity = 2 * Math.max(1, n);
+    if (from.length < capacity) {
+      from = new int[capacity];
+      to = new int[capacity];
+      left = new int[capacity];
+      right = new int[capacity];
+      minX = new double[capacity];
+      minY = new double[capacity];
+      maxX = new double[capacity];
+      maxY = new double[capacity];
+      maxRadius = new double[capacity];
+      stack = new int[capacity];
+    }
+
+    nodes = 0;
+    if (n > 0) {
+      build(x, y, radius, 0, n);
+    }
+  }
+
+  private int build(final double[] x, final double[] y, final double[] radius, final int start,
+      final int end) {
+
+    final int node = nodes++;
+    from[node] = start;
+    to[node] = end;
+    fit(x, y, radius, node);
+
+    if (end - start <= leafSize) {
+      left[node] = LEAF;
+      right[node] = LEAF;
+      return node;
+    }
+
+    // Split at the median of the longest side
+    final double[] coordinates = maxX[node] - minX[node] >= maxY[node] - minY[node] ? x : y;
+    final int middle = (start + end) / 2;
+    select(coordinates, start, end - 1, middle);
+
+    left[node] = build(x, y, radius, start, middle);
+    right[node] = build(x, y, radius, middle, end);
+    return node;
+  }
+
+  private void select(final double[] coordinates, int low, int high, final int k) {
+    while (low < high) {
+      final double pivot = coordinates[order[(low + high) >>> 1]];
+      int i = low;
+      int j = high;
+
+      while (i <= j) {
+        while (coordinates[order[i]] < pivot) {
+          i++;
+        }
+        while (coordinates[order[j]] > pivot) {
+          j--;
+        }
+        if (i <= j) {
+          final int aux = order[i];
+          order[i++] = order[j];
+          order[j--] = aux;
+        }
+      }
+
+      if (k <= j) {
+        high = j;
+      } else if (k >= i) {
+        low = i;
+      } else {
+        return;
+      }
+    }
+  }
+
+  private void refit(final double[] x, final double[] y, final double[] radius, final int node) {
+    if (left[node] == LEAF) {
+      fit(x, y, radius, node);
+      return;
+    }
+
+    refit(x, y, radius, left[node]);
+    refit(x, y, radius, right[node]);
+    minX[node] = Math.min(minX[left[node]], minX[right[node]]);
+    minY[node] = Math.min(minY[left[node]], minY[right[node]]);
+    maxX[node] = Math.max(maxX[left[node]], maxX[right[node]]);
+    maxY[node] = Math.max(maxY[left[node]], maxY[right[node]]);
+    maxRadius[node] = Math.max(maxRadius[left[node]], maxRadius[right[node]]);
+  }
+
+  private void fit(final double[] x, final double[] y, final double[] radius, final int node) {
+    minX[node] = Double.POSITIVE_INFINITY;
+    minY[node] = Double.POSITIVE_INFINITY;
+    maxX[node] = Double.NEGATIVE_INFINITY;
+    maxY[node] = Double.NEGATIVE_INFINITY;
+    maxRadius[node] = 0;
+
+    for (int k = from[node]; k < to[node]; k++) {
+      final int i = order[k];
+      minX[node] = Math.min(minX[node], x[i]);
+      minY[node] = Math.min(minY[node], y[i]);
+      maxX[node] = Math.max(maxX[node], x[i]);
+      maxY[node] = Math.max(maxY[node], y[i]);
+      maxRadius[node] = Math.max(maxRadius[node], radius[i]);
+    }
+  }
+
+  private void addNeighbours(final double[] x, final double[] y, final double[] radius,
+      final int particle, final double rc) {
+
+    int top = 0;
+    stack[top++] = 0;
+
+    while (top > 0) {
+      final int node = stack[--top];
+      final double reach = rc + radius[particle] + maxRadius[node];
+      final double dx = Math.max(0, Math.max(minX[node] - x[particle], x[particle] - maxX[node]));
+      final double dy = Math.max(0, Math.max(minY[node] - y[particle], y[particle] - maxY[node]));
+
+      if (dx * dx + dy * dy > reach * reach) {
+        continue;
+      }
+
+      if (left[node] != LEAF) {
+        stack[top++] = left[node];
+        stack[top++] = right[node];
+        continue;
+      }
+
+      for (int k = from[node]; k < to[node]; k++) {
+        final int other = order[k];
+
+        // Each pair is kept once, from its lower index
+        if (other > particle) {
+          final double distanceX = x[other] - x[particle];
+          final double distanceY = y[other] - y[particle];
+          final double distance = Math.sqrt(distanceX * distanceX + distanceY * distanceY)
+              - radius[particle] - radius[other];
+
+          if (distance <= rc) {
+            pairs.add(particle, other, distance);
+          }
+        }
+      }
+    }
+  }
+}
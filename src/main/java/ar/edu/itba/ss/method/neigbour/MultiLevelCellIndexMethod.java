@@ -0,0 +1,273 @@
+package ar.edu.itba.ss.method.neigbour;
+
+import ar.edu.itba.ss.model.Neighbour;
+import ar.edu.itba.ss.model.NeighbourList;
+import ar.edu.itba.ss.model.NeighbourPairs;
+import ar.edu.itba.ss.model.Particle;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class MultiLevelCellIndexMethod implements NeighbourFindingMethod,
+    IndexedNeighbourFindingMethod {
+
+  private final static int DEFAULT_LEVELS = 8;
+
+  private final double originX;
+  private final double originY;
+  private final double width;
+  private final double height;
+  private final Level[] levels;
+  private final NeighbourPairs pairs;
+
+  private int[] levelOfParticle = new int[0];
+  private double[] x = new double[0];
+  private double[] y = new double[0];
+  private double[] radius = new double[0];
+
+  public MultiLevelCellIndexMethod(final double width, final double height) {
+    this(0, 0, width, height, DEFAULT_LEVELS);
+  }
+
+  public MultiLevelCellIndexMethod(final double originX, final double originY,
+      final double width, final double height, final int levels) {
+    if (levels <= 0) {
+      throw new IllegalArgumentException("Levels have to be positive");
+    }
+
+    this.originX = originX;
+    this.originY = originY;
+    this.width = width;
+    this.height = height;
+    this.levels = new Level[levels];
+    for (int level = 0; level < levels; level++) {
+      this.levels[level] = new Level();
+    }
+    this.pairs = new NeighbourPairs();
+  }
+
+  // Level k holds the particles with radius in (maxRadius / 2^(k+1), maxRadius / 2^k]
+  public NeighbourPairs apply(final double[] x, final double[] y, final double[] radius,
+      final int n, final double maxRadius, final double rc) {
+
+    if (maxRadius < 0) {
+      throw new IllegalArgumentException("Invalid max radius");
+    }
+
+    if (levelOfParticle.length < n) {
+      levelOfParticle = new int[n];
+    }
+
+    for (final Level level : levels) {
+      level.size = 0;
+      level.maxRadius = 0;
+    }
+
+    for (int i = 0; i < n; i++) {
+      final int level = levelOf(radius[i], maxRadius);
+      levelOfParticle[i] = level;
+      levels[level].size++;
+      levels[level].maxRadius = Math.max(levels[level].maxRadius, radius[i]);
+    }
+
+    for (int level = 0; level < levels.length; level++) {
+      if (levels[level].size > 0) {
+        levels[level].sortByCell(x, y, n, rc + 2 * levels[level].maxRadius, levelOfParticle,
+            level);
+      }
+    }
+
+    pairs.clear();
+    for (final Level level : levels) {
+      if (level.size > 0) {
+        addNeighboursInLevel(level, x, y, radius, rc);
+      }
+    }
+
+    // Each cross level pair is searched from the smaller particle into the coarser grid
+    for (int i = 0; i < n; i++) {
+      for (int level = 0; level < levelOfParticle[i]; level++) {
+        if (levels[level].size > 0) {
+          addNeighboursFromLevel(levels[level], i, x, y, radius, rc);
+        }
+      }
+    }
+
+    return pairs;
+  }
+
+  @Override
+  public NeighbourPairs apply(final double[] x, final double[] y, final double[] radius,
+      final int n, final double rc) {
+    return apply(x, y, radius, n, IndexedNeighbourFindingMethod.maxRadius(radius, n), rc);
+  }
+
+  public Map<Particle, Set<Neighbour>> apply(final List<Particle> particles, final double maxRadius,
+      final double rc) {
+
+    return applyToParticles(particles, maxRadius, rc).toMap(particles);
+  }
+
+  @Override
+  public Map<Particle, Set<Neighbour>> apply(final List<Particle> particles, final double rc) {
+    return apply(particles, maxRadius(particles), rc);
+  }
+
+  @Override
+  public NeighbourList applyCompressed(final List<Particle> particles, final double rc) {
+    return NeighbourList.fromPairs(applyToParticles(particles, maxRadius(particles), rc),
+        particles.size());
+  }
+
+  private NeighbourPairs applyToParticles(final List<Particle> particles, final double maxRadius,
+      final double rc) {
+
+    final int n = particles.size();
+    if (x.length < n) {
+      x = new double[n];
+      y = new double[n];
+      radius = new double[n];
+    }
+
+    int i = 0;
+    for (final Particle particle : particles) {
+      x[i] = particle.position().getX();
+      y[i] = particle.position().getY();
+      radius[i] = particle.radius();
+      i++;
+    }
+
+    return apply(x, y, radius, n, maxRadius, rc);
+  }
+
+  private static double maxRadius(final List<Particle> particles) {
+    return particles.stream()
+        .mapToDouble(Particle::radius)
+        .max().orElseThrow(() -> new IllegalArgumentException("Invalid particles"));
+  }
+
+  private int levelOf(final double radius, final double maxRadius) {
+    if (radius <= 0) {
+      return levels.length - 1;
+    }
+
+    final int level = (int) Math.floor(Math.log(maxRadius / radius) / Math.log(2));
+    return Math.max(0, Math.min(levels.length - 1, level));
+  }
+
+  private void addNeighboursInLevel(final Level level, final double[] x, final double[] y,
+      final double[] radius, final double rc) {
+
+    final CellGrid grid = level.grid;
+
+    for (int row = 0; row < grid.getRows(); row++) {
+      for (int col = 0; col < grid.getCols(); col++) {
+        final int currentCell = grid.cell(row, col);
+
+        if (level.cellStart[currentCell] == level.cellStart[currentCell + 1]) {
+          continue;
+        }
+
+        for (final int[] direction : CellGrid.DIRECTIONS) {
+          final int neighbourRow = row + direction[CellGrid.DIRECTIONS_ROW];
+          final int neighbourCol = col + direction[CellGrid.DIRECTIONS_COL];
+
+          if (neighbourRow >= 0 && neighbourRow < grid.getRows() && neighbourCol >= 0
+              && neighbourCol < grid.getCols()) {
+
+            final int neighbourCell = grid.cell(neighbourRow, neighbourCol);
+
+            for (int a = level.cellStart[currentCell]; a < level.cellStart[currentCell + 1]; a++) {
+              final int first = neighbourCell == currentCell ? a + 1
+                  : level.cellStart[neighbourCell];
+
+              for (int b = first; b < level.cellStart[neighbourCell + 1]; b++) {
+                addIfNeighbours(level.particleIndex[a], level.particleIndex[b], x, y, radius, rc);
+              }
+            }
+          }
+        }
+      }
+    }
+  }
+
+  private void addNeighboursFromLevel(final Level level, final int particle, final double[] x,
+      final double[] y, final double[] radius, final double rc) {
+
+    final CellGrid grid = level.grid;
+    final int row = grid.row(y[particle]);
+    final int col = grid.col(x[particle]);
+
+    for (int neighbourRow = Math.max(0, row - 1);
+        neighbourRow <= Math.min(grid.getRows() - 1, row + 1); neighbourRow++) {
+      for (int neighbourCol = Math.max(0, col - 1);
+          neighbourCol <= Math.min(grid.getCols() - 1, col + 1); neighbourCol++) {
+
+        final int cell = grid.cell(neighbourRow, neighbourCol);
+        for (int b = level.cellStart[cell]; b < level.cellStart[cell + 1]; b++) {
+          addIfNeighbours(particle, level.particleIndex[b], x, y, radius, rc);
+        }
+      }
+    }
+  }
+
+  private void addIfNeighbours(final int particle1, final int particle2, final double[] x,
+      final double[] y, final double[] radius, final double rc) {
+
+    final double dx = x[particle2] - x[particle1];
+    final double dy = y[particle2] - y[particle1];
+    final double distance = Math.sqrt(dx * dx + dy * dy) - radius[particle1] - radius[particle2];
+
+    if (distance <= rc) {
+      pairs.add(particle1, particle2, distance);
+    }
+  }
+
+  private class Level {
+
+    private CellGrid grid;
+    private int size;
+    private double maxRadius;
+    private int[] cellStart = new int[0];
+    private int[] cellFill = new int[0];
+    private int[] particleIndex = new int[0];
+
+    private void sortByCell(final double[] x, final double[] y, final int n,
+        final double minCellLength, final int[] levelOfParticle, final int index) {
+
+      if (grid == null || grid.getCols() != CellGrid.cellsAlong(width, minCellLength)
+          || grid.getRows() != CellGrid.cellsAlong(height, minCellLength)) {
+        grid = new CellGrid(originX, originY, width, height, minCellLength);
+      }
+
+      final int cells = grid.cells();
+      if (cellStart.length < cells + 1) {
+        cellStart = new int[cells + 1];
+        cellFill = new int[cells];
+      }
+      if (particleIndex.length < size) {
+        particleIndex = new int[size];
+      }
+
+      Arrays.fill(cellStart, 0, cells + 1, 0);
+
+      for (int i = 0; i < n; i++) {
+        if (levelOfParticle[i] == index) {
+          cellStart[grid.cell(grid.row(y[i]), grid.col(x[i])) + 1]++;
+        }
+      }
+
+      for (int cell = 0; cell < cells; cell++) {
+        cellStart[cell + 1] += cellStart[cell];
+        cellFill[cell] = cellStart[cell];
+      }
+
+      for (int i = 0; i < n; i++) {
+        if (levelOfParticle[i] == index) {
+          particleIndex[cellFill[grid.cell(grid.row(y[i]), grid.col(x[i]))]++] = i;
+        }
+      }
+    }
+  }
+}
@@ -1,6 +1,7 @@
 package ar.edu.itba.ss.method.neigbour;
 
 import ar.edu.itba.ss.model.Neighbour;
+import ar.edu.itba.ss.model.NeighbourList;
 import ar.edu.itba.ss.model.Particle;
 import java.util.List;
 import java.util.Map;
@@ -10,4 +11,8 @@ public interface NeighbourFindingMethod {
 
   Map<Particle, Set<Neighbour>> apply(final List<Particle> particles,
       final double rc);
+
+  default NeighbourList applyCompressed(final List<Particle> particles, final double rc) {
+    return NeighbourList.fromMap(particles, apply(particles, rc));
+  }
 }
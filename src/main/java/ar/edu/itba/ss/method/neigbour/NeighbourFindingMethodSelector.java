@@ -0,0 +1,291 @@
+package ar.edu.itba.ss.method.neigbour;
+
+import ar.edu.itba.ss.model.ImmutableParticle;
+import ar.edu.itba.ss.model.Particle;
+import ar.edu.itba.ss.model.ParticleStore;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+public class NeighbourFindingMethodSelector {
+
+  private static final int DEFAULT_TRIALS = 5;
+  private static final int BRUTE_FORCE_LIMIT = 2000;
+  private static final int LEVELS = 8;
+  private static final int MAX_SUBDIVISIONS = 3;
+  private static final double[] SKIN_DIAMETERS = {0.1, 0.25, 0.5};
+
+  private final double originX;
+  private final double originY;
+  private final double width;
+  private final double height;
+  private final boolean periodic;
+  private final int trials;
+
+  public NeighbourFindingMethodSelector(final double width, final double height,
+      final boolean periodic) {
+    this(0, 0, width, height, periodic, DEFAULT_TRIALS);
+  }
+
+  public NeighbourFindingMethodSelector(final double originX, final double originY,
+      final double width, final double height, final boolean periodic, final int trials) {
+    if (trials <= 0) {
+      throw new IllegalArgumentException("Trials have to be positive");
+    }
+
+    this.originX = originX;
+    this.originY = originY;
+    this.width = width;
+    this.height = height;
+    this.periodic = periodic;
+    this.trials = trials;
+  }
+
+  // Times every candidate over a few steps where particles drift with their own velocity
+  public Selection select(final List<Particle> particles, final double rc, final double dt) {
+    return select(particles, rc, dt, false);
+  }
+
+  // Only the candidates that also search over coordinate arrays, timed on them. Their methods
+  // implement IndexedNeighbourFindingMethod.
+  public Selection selectIndexed(final List<Particle> particles, final double rc,
+      final double dt) {
+    return select(particles, rc, dt, true);
+  }
+
+  private Selection select(final List<Particle> particles, final double rc, final double dt,
+      final boolean indexed) {
+
+    final List<List<Particle>> steps = trialSteps(particles, dt);
+    final double maxRadius = particles.stream()
+        .mapToDouble(Particle::radius)
+        .max().orElseThrow(() -> new IllegalArgumentException("Invalid particles"));
+    final double maxSpeed = particles.stream()
+        .mapToDouble(particle -> particle.velocity().magnitude())
+        .max().orElse(0);
+
+    final Map<String, Double> timings = new LinkedHashMap<>();
+    final Map<String, String> skipped = new LinkedHashMap<>();
+
+    final Map<String, Supplier<NeighbourFindingMethod>> candidates = candidates(particles.size(),
+        rc, indexed);
+    for (final Map.Entry<String, Supplier<NeighbourFindingMethod>> candidate
+        : candidates.entrySet()) {
+      measure(candidate.getKey(), candidate.getValue(), steps, rc, 0, indexed, timings, skipped);
+    }
+
+    final String buildName = fastest(timings);
+    if (buildName == null) {
+      throw new IllegalArgumentException("No neighbour finding method works for this box");
+    }
+
+    // Verlet lists only pay off over several steps, so each skin wraps the best plain method and
+    // its build is spread over the steps it takes a particle to cross half of the skin
+    if (!periodic) {
+      final Supplier<NeighbourFindingMethod> buildMethod = candidates.get(buildName);
+
+      for (final double diameters : SKIN_DIAMETERS) {
+        final double skin = diameters * 2 * maxRadius;
+        if (skin <= 0) {
+          continue;
+        }
+
+        final int stepsPerBuild = maxSpeed * dt > 0
+            ? (int) Math.max(1, Math.min(Integer.MAX_VALUE, skin / (2 * maxSpeed * dt)))
+            : Integer.MAX_VALUE;
+        final String name = "VerletListMethod(" + buildName + ", skin=" + skin + ")";
+        candidates.put(name, () -> new VerletListMethod(buildMethod.get(), skin));
+        measure(name, candidates.get(name), steps, rc, stepsPerBuild, indexed, timings,
+            skipped);
+      }
+    }
+
+    final String best = fastest(timings);
+    return new Selection(best, candidates.get(best).get(), timings, skipped);
+  }
+
+  private Map<String, Supplier<NeighbourFindingMethod>> candidates(final int n,
+      final double rc, final boolean indexed) {
+    final Map<String, Supplier<NeighbourFindingMethod>> candidates = new LinkedHashMap<>();
+
+    if (!indexed) {
+      if (!periodic && rc > 0 && n <= BRUTE_FORCE_LIMIT) {
+        candidates.put("BruteForceMethod", BruteForceMethod::new);
+      }
+
+      candidates.put("CellIndexMethod",
+          () -> new CellIndexMethod(originX, originY, width, height, periodic));
+    }
+
+    for (int threads = 1; threads <= Runtime.getRuntime().availableProcessors(); threads *= 2) {
+      final int poolThreads = threads;
+      candidates.put("IndexedCellIndexMethod(threads=" + threads + ")",
+          () -> new IndexedCellIndexMethod(originX, originY, width, height, periodic,
+              poolThreads));
+    }
+
+    for (int subdivisions = 2; subdivisions <= MAX_SUBDIVISIONS; subdivisions++) {
+      final int cellSubdivisions = subdivisions;
+      candidates.put("IndexedCellIndexMethod(threads=1, subdivisions=" + subdivisions + ")",
+          () -> new IndexedCellIndexMethod(originX, originY, width, height, periodic, 1,
+              cellSubdivisions));
+    }
+
+    if (!periodic) {
+      candidates.put("SweepAndPruneMethod", SweepAndPruneMethod::new);
+      candidates.put("KdTreeMethod", KdTreeMethod::new);
+      candidates.put("SpatialHashMethod", SpatialHashMethod::new);
+      candidates.put("MultiLevelCellIndexMethod",
+          () -> new MultiLevelCellIndexMethod(originX, originY, width, height, LEVELS));
+    }
+
+    return candidates;
+  }
+
+  // With stepsPerBuild the first call builds a list that is reused for that many steps, so it
+  // is timed too. Otherwise every call does the same work and the first one only warms up.
+  private void measure(final String name, final Supplier<NeighbourFindingMethod> supplier,
+      final List<List<Particle>> steps, final double rc, final int stepsPerBuild,
+      final boolean indexed, final Map<String, Double> timings,
+      final Map<String, String> skipped) {
+
+    final NeighbourFindingMethod method = supplier.get();
+    final List<ParticleStore> stores = indexed ? stores(steps) : null;
+
+    try {
+      long start = System.nanoTime();
+      apply(method, steps, stores, 0, rc);
+      final double firstTime = (System.nanoTime() - start) / 1e6;
+
+      start = System.nanoTime();
+      for (int step = 1; step < steps.size(); step++) {
+        apply(method, steps, stores, step, rc);
+      }
+      final double stepTime = (System.nanoTime() - start) / 1e6 / (steps.size() - 1);
+
+      timings.put(name, stepsPerBuild > 0
+          ? firstTime / stepsPerBuild + stepTime * (stepsPerBuild - 1) / stepsPerBuild
+          : stepTime);
+    } catch (IllegalArgumentException e) {
+      skipped.put(name, e.getMessage());
+    } finally {
+      shutdown(method);
+    }
+  }
+
+  private static void apply(final NeighbourFindingMethod method,
+      final List<List<Particle>> steps, final List<ParticleStore> stores, final int step,
+      final double rc) {
+    if (stores == null) {
+      method.apply(steps.get(step), rc);
+      return;
+    }
+
+    final ParticleStore store = stores.get(step);
+    ((IndexedNeighbourFindingMethod) method).apply(store.getX(), store.getY(),
+        store.getRadius(), store.size(), rc);
+  }
+
+  private static List<ParticleStore> stores(final List<List<Particle>> steps) {
+    final List<ParticleStore> stores = new ArrayList<>(steps.size());
+    for (final List<Particle> step : steps) {
+      stores.add(ParticleStore.of(step));
+    }
+
+    return stores;
+  }
+
+  private static void shutdown(final NeighbourFindingMethod method) {
+    if (method instanceof IndexedCellIndexMethod) {
+      ((IndexedCellIndexMethod) method).shutdown();
+    } else if (method instanceof VerletListMethod) {
+      shutdown(((VerletListMethod) method).getBuildMethod());
+    }
+  }
+
+  private static String fastest(final Map<String, Double> timings) {
+    String fastest = null;
+
+    for (final Map.Entry<String, Double> timing : timings.entrySet()) {
+      if (fastest == null || timing.getValue() < timings.get(fastest)) {
+        fastest = timing.getKey();
+      }
+    }
+
+    return fastest;
+  }
+
+  private List<List<Particle>> trialSteps(final List<Particle> particles, final double dt) {
+    final List<List<Particle>> steps = new ArrayList<>(trials + 1);
+    List<Particle> current = particles;
+    steps.add(current);
+
+    for (int step = 0; step < trials; step++) {
+      final List<Particle> next = new ArrayList<>(current.size());
+      for (final Particle particle : current) {
+        next.add(ImmutableParticle.builder().from(particle)
+            .position(particle.position().add(particle.velocity().multiply(dt)))
+            .build());
+      }
+
+      current = next;
+      steps.add(current);
+    }
+
+    return steps;
+  }
+
+  public static class Selection {
+
+    private final String name;
+    private final NeighbourFindingMethod method;
+    private final Map<String, Double> timings;
+    private final Map<String, String> skipped;
+
+    private Selection(final String name, final NeighbourFindingMethod method,
+        final Map<String, Double> timings, final Map<String, String> skipped) {
+      this.name = name;
+      this.method = method;
+      this.timings = Collections.unmodifiableMap(timings);
+      this.skipped = Collections.unmodifiableMap(skipped);
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public NeighbourFindingMethod getMethod() {
+      return method;
+    }
+
+    public double getTime() {
+      return timings.get(name);
+    }
+
+    // Milliseconds per step of every candidate that ran, in the order they were tried
+    public Map<String, Double> getTimings() {
+      return timings;
+    }
+
+    // Candidates that don't work for the box, with the reason
+    public Map<String, String> getSkipped() {
+      return skipped;
+    }
+
+    public void print(final PrintStream out) {
+      for (final Map.Entry<String, Double> timing : timings.entrySet()) {
+        out.println(timing.getKey() + ": " + timing.getValue() + " ms per step");
+      }
+
+      for (final Map.Entry<String, String> skip : skipped.entrySet()) {
+        out.println(skip.getKey() + ": skipped, " + skip.getValue());
+      }
+
+      out.println("Selected " + name);
+    }
+  }
+}
@@ -0,0 +1,152 @@
+package ar.edu.itba.ss.method.neigbour;
+
+import ar.edu.itba.ss.model.Particle;
+import ar.edu.itba.ss.model.ParticleStore;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class SpaceFillingCurveReordering {
+
+  private static final int BITS = 16;
+  private static final int SIDE = 1 << BITS;
+  private static final int INDEX_BITS = 31;
+  private static final long INDEX_MASK = (1L << INDEX_BITS) - 1;
+
+  public enum Curve {
+    MORTON, HILBERT
+  }
+
+  private final double originX;
+  private final double originY;
+  private final double width;
+  private final double height;
+  private final Curve curve;
+  private final int interval;
+  private int calls;
+  private long[] slotKeys = new long[0];
+  private int[] slotOrder = new int[0];
+
+  public SpaceFillingCurveReordering(final double width, final double height, final Curve curve,
+      final int interval) {
+    this(0, 0, width, height, curve, interval);
+  }
+
+  public SpaceFillingCurveReordering(final double originX, final double originY,
+      final double width, final double height, final Curve curve, final int interval) {
+    if (width <= 0 || height <= 0) {
+      throw new IllegalArgumentException("Dimensions have to be positive");
+    }
+
+    if (interval <= 0) {
+      throw new IllegalArgumentException("Interval has to be positive");
+    }
+
+    this.originX = originX;
+    this.originY = originY;
+    this.width = width;
+    this.height = height;
+    this.curve = curve;
+    this.interval = interval;
+  }
+
+  public static long mortonIndex(final int x, final int y) {
+    return spread(x) | (spread(y) << 1);
+  }
+
+  public static long hilbertIndex(int x, int y) {
+    long index = 0;
+
+    for (int s = SIDE / 2; s > 0; s /= 2) {
+      final int rx = (x & s) > 0 ? 1 : 0;
+      final int ry = (y & s) > 0 ? 1 : 0;
+      index += (long) s * s * ((3 * rx) ^ ry);
+
+      // Rotate the quadrant so the curve stays continuous
+      if (ry == 0) {
+        if (rx == 1) {
+          x = SIDE - 1 - x;
+          y = SIDE - 1 - y;
+        }
+
+        final int aux = x;
+        x = y;
+        y = aux;
+      }
+    }
+
+    return index;
+  }
+
+  private static long spread(final int coordinate) {
+    long spread = coordinate & 0xFFFFL;
+    spread = (spread | (spread << 8)) & 0x00FF00FFL;
+    spread = (spread | (spread << 4)) & 0x0F0F0F0FL;
+    spread = (spread | (spread << 2)) & 0x33333333L;
+    spread = (spread | (spread << 1)) & 0x55555555L;
+    return spread;
+  }
+
+  public List<Particle> apply(final List<Particle> particles) {
+    return calls++ % interval == 0 ? sort(particles) : particles;
+  }
+
+  public List<Particle> sort(final List<Particle> particles) {
+    final Particle[] indexed = particles.toArray(new Particle[0]);
+    final long[] keys = new long[indexed.length];
+
+    // The curve index goes in the high bits so a primitive sort keeps the particle index
+    for (int i = 0; i < indexed.length; i++) {
+      final long index = index(indexed[i].position().getX(), indexed[i].position().getY());
+      keys[i] = (index << INDEX_BITS) | i;
+    }
+
+    Arrays.sort(keys);
+
+    final List<Particle> sorted = new ArrayList<>(indexed.length);
+    for (final long key : keys) {
+      sorted.add(indexed[(int) (key & INDEX_MASK)]);
+    }
+
+    return sorted;
+  }
+
+  // Slots of the store in curve order on the calls the interval selects, null on the rest
+  public int[] apply(final ParticleStore particles) {
+    if (calls++ % interval != 0) {
+      return null;
+    }
+
+    final int n = particles.size();
+    if (slotKeys.length < n) {
+      slotKeys = new long[n];
+      slotOrder = new int[n];
+    }
+
+    final double[] x = particles.getX();
+    final double[] y = particles.getY();
+    for (int slot = 0; slot < n; slot++) {
+      slotKeys[slot] = (index(x[slot], y[slot]) << INDEX_BITS) | slot;
+    }
+
+    Arrays.sort(slotKeys, 0, n);
+    for (int i = 0; i < n; i++) {
+      slotOrder[i] = (int) (slotKeys[i] & INDEX_MASK);
+    }
+
+    return slotOrder;
+  }
+
+  private long index(final double x, final double y) {
+    final int cellX = coordinate(x, originX, width);
+    final int cellY = coordinate(y, originY, height);
+
+    return curve == Curve.MORTON ? mortonIndex(cellX, cellY) : hilbertIndex(cellX, cellY);
+  }
+
+  private static int coordinate(final double position, final double origin,
+      final double length) {
+    final int coordinate = (int) ((position - origin) / length * SIDE);
+    return Math.max(0, Math.min(SIDE - 1, coordinate));
+  }
+}
@@ -0,0 +1,239 @@
+package ar.edu.itba.ss.method.neigbour;
+
+import ar.edu.itba.ss.model.Neighbour;
+import ar.edu.itba.ss.model.NeighbourList;
+import ar.edu.itba.ss.model.NeighbourPairs;
+import ar.edu.itba.ss.model.Particle;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class SpatialHashMethod implements NeighbourFindingMethod,
+    IndexedNeighbourFindingMethod {
+
+  private static final int EMPTY = -1;
+
+  private final int subdivisions;
+  private final NeighbourPairs pairs;
+  private int cells;
+  private int mask;
+  private CellStencil stencil;
+  private double stencilReach;
+
+  private long[] tableKeys = new long[0];
+  private int[] tableCells = new int[0];
+  private int[] cellRow = new int[0];
+  private int[] cellCol = new int[0];
+  private int[] cellStart = new int[0];
+  private int[] cellFill = new int[0];
+  private int[] cellOfParticle = new int[0];
+  private int[] particleIndex = new int[0];
+  private double[] x = new double[0];
+  private double[] y = new double[0];
+  private double[] radius = new double[0];
+
+  public SpatialHashMethod() {
+    this(1);
+  }
+
+  public SpatialHashMethod(final int subdivisions) {
+    if (subdivisions <= 0) {
+      throw new IllegalArgumentException("Subdivisions have to be positive");
+    }
+
+    this.subdivisions = subdivisions;
+    this.pairs = new NeighbourPairs();
+  }
+
+  // Only occupied cells are stored, keyed by their unbounded row and column
+  public NeighbourPairs apply(final double[] x, final double[] y, final double[] radius,
+      final int n, final double maxRadius, final double rc) {
+
+    if (maxRadius < 0) {
+      throw new IllegalArgumentException("Invalid max radius");
+    }
+
+    final double reach = rc + 2 * maxRadius;
+    final double cellLength = reach > 0 ? reach / subdivisions : 1;
+    if (stencil == null || reach != stencilReach) {
+      stencil = new CellStencil(cellLength, cellLength, reach);
+      stencilReach = reach;
+    }
+
+    sortByCell(x, y, n, cellLength);
+
+    pairs.clear();
+    for (int cell = 0; cell < cells; cell++) {
+      for (int k = 0; k < stencil.size(); k++) {
+        final int neighbourCell = find(key(cellRow[cell] + stencil.row(k),
+            cellCol[cell] + stencil.col(k)));
+
+        if (neighbourCell != EMPTY) {
+          addNeighbours(x, y, radius, cell, neighbourCell, rc);
+        }
+      }
+    }
+
+    return pairs;
+  }
+
+  @Override
+  public NeighbourPairs apply(final double[] x, final double[] y, final double[] radius,
+      final int n, final double rc) {
+    return apply(x, y, radius, n, IndexedNeighbourFindingMethod.maxRadius(radius, n), rc);
+  }
+
+  public Map<Particle, Set<Neighbour>> apply(final List<Particle> particles, final double maxRadius,
+      final double rc) {
+
+    return applyToParticles(particles, maxRadius, rc).toMap(particles);
+  }
+
+  @Override
+  public Map<Particle, Set<Neighbour>> apply(final List<Particle> particles, final double rc) {
+    return apply(particles, maxRadius(particles), rc);
+  }
+
+  @Override
+  public NeighbourList applyCompressed(final List<Particle> particles, final double rc) {
+    return NeighbourList.fromPairs(applyToParticles(particles, maxRadius(particles), rc),
+        particles.size());
+  }
+
+  public int getCells() {
+    return cells;
+  }
+
+  private NeighbourPairs applyToParticles(final List<Particle> particles, final double maxRadius,
+      final double rc) {
+
+    final int n = particles.size();
+    if (x.length < n) {
+      x = new double[n];
+      y = new double[n];
+      radius = new double[n];
+    }
+
+    int i = 0;
+    for (final Particle particle : particles) {
+      x[i] = particle.position().getX();
+      y[i] = particle.position().getY();
+      radius[i] = particle.radius();
+      i++;
+    }
+
+    return apply(x, y, radius, n, maxRadius, rc);
+  }
+
+  private static double maxRadius(final List<Particle> particles) {
+    return particles.stream()
+        .mapToDouble(Particle::radius)
+        .max().orElseThrow(() -> new IllegalArgumentException("Invalid particles"));
+  }
+
+  private void sortByCell(final double[] x, final double[] y, final int n,
+      final double cellLength) {
+
+    // Keep the table at most half full
+    final int capacity = Integer.highestOneBit(Math.max(1, n) * 4 - 1);
+    if (tableKeys.length != capacity) {
+      tableKeys = new long[capacity];
+      tableCells = new int[capacity];
+      mask = capacity - 1;
+    }
+    if (cellOfParticle.length < n) {
+      cellOfParticle = new int[n];
+      particleIndex = new int[n];
+      cellRow = new int[n];
+      cellCol = new int[n];
+      cellStart = new int[n + 1];
+      cellFill = new int[n];
+    }
+
+    Arrays.fill(tableCells, EMPTY);
+    cells = 0;
+
+    for (int i = 0; i < n; i++) {
+      final int row = coordinate(y[i], cellLength);
+      final int col = coordinate(x[i], cellLength);
+      cellOfParticle[i] = findOrAdd(row, col);
+    }
+
+    Arrays.fill(cellStart, 0, cells + 1, 0);
+    for (int i = 0; i < n; i++) {
+      cellStart[cellOfParticle[i] + 1]++;
+    }
+
+    for (int cell = 0; cell < cells; cell++) {
+      cellStart[cell + 1] += cellStart[cell];
+      cellFill[cell] = cellStart[cell];
+    }
+
+    for (int i = 0; i < n; i++) {
+      particleIndex[cellFill[cellOfParticle[i]]++] = i;
+    }
+  }
+
+  private static int coordinate(final double position, final double cellLength) {
+    return (int) Math.max(Integer.MIN_VALUE / 2,
+        Math.min(Integer.MAX_VALUE / 2, Math.floor(position / cellLength)));
+  }
+
+  private static long key(final int row, final int col) {
+    return ((long) row << 32) | (col & 0xFFFFFFFFL);
+  }
+
+  private int slot(final long key) {
+    return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+  }
+
+  private int find(final long key) {
+    for (int slot = slot(key); tableCells[slot] != EMPTY; slot = (slot + 1) & mask) {
+      if (tableKeys[slot] == key) {
+        return tableCells[slot];
+      }
+    }
+
+    return EMPTY;
+  }
+
+  private int findOrAdd(final int row, final int col) {
+    final long key = key(row, col);
+    int slot = slot(key);
+
+    while (tableCells[slot] != EMPTY) {
+      if (tableKeys[slot] == key) {
+        return tableCells[slot];
+      }
+      slot = (slot + 1) & mask;
+    }
+
+    tableKeys[slot] = key;
+    tableCells[slot] = cells;
+    cellRow[cells] = row;
+    cellCol[cells] = col;
+    return cells++;
+  }
+
+  private void addNeighbours(final double[] x, final double[] y, final double[] radius,
+      final int currentCell, final int neighbourCell, final double rc) {
+
+    for (int a = cellStart[currentCell]; a < cellStart[currentCell + 1]; a++) {
+      final int particle1 = particleIndex[a];
+      final int first = neighbourCell == currentCell ? a + 1 : cellStart[neighbourCell];
+
+      for (int b = first; b < cellStart[neighbourCell + 1]; b++) {
+        final int particle2 = particleIndex[b];
+        final double dx = x[particle2] - x[particle1];
+        final double dy = y[particle2] - y[particle1];
+        final double distance = Math.sqrt(dx * dx + dy * dy) - radius[particle1]
+            - radius[particle2];
+
+        if (distance <= rc) {
+          pairs.add(particle1, particle2, distance);
+        }
+      }
+    }
+  }
+}
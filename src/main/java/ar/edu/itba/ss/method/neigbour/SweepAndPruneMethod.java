@@ -0,0 +1,115 @@
+package ar.edu.itba.ss.method.neigbour;
+
+import ar.edu.itba.ss.model.Neighbour;
+import ar.edu.itba.ss.model.NeighbourList;
+import ar.edu.itba.ss.model.NeighbourPairs;
+import ar.edu.itba.ss.model.Particle;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class SweepAndPruneMethod implements NeighbourFindingMethod,
+    IndexedNeighbourFindingMethod {
+
+  private final NeighbourPairs pairs;
+  private int particles = -1;
+
+  private int[] order = new int[0];
+  private double[] lower = new double[0];
+  private double[] x = new double[0];
+  private double[] y = new double[0];
+  private double[] radius = new double[0];
+
+  public SweepAndPruneMethod() {
+    this.pairs = new NeighbourPairs();
+  }
+
+  // The order from the previous call is kept, so insertion sort only fixes the few swaps
+  @Override
+  public NeighbourPairs apply(final double[] x, final double[] y, final double[] radius,
+      final int n, final double rc) {
+
+    if (n != particles) {
+      particles = n;
+      order = new int[n];
+      lower = new double[n];
+      for (int i = 0; i < n; i++) {
+        order[i] = i;
+      }
+    }
+
+    for (int k = 0; k < n; k++) {
+      lower[k] = y[order[k]] - radius[order[k]];
+    }
+    insertionSort(n);
+
+    pairs.clear();
+    for (int a = 0; a < n; a++) {
+      final int particle1 = order[a];
+      final double upper = y[particle1] + radius[particle1] + rc;
+
+      for (int b = a + 1; b < n && lower[b] <= upper; b++) {
+        final int particle2 = order[b];
+        final double dx = x[particle2] - x[particle1];
+
+        if (Math.abs(dx) <= radius[particle1] + radius[particle2] + rc) {
+          final double dy = y[particle2] - y[particle1];
+          final double distance = Math.sqrt(dx * dx + dy * dy) - radius[particle1]
+              - radius[particle2];
+
+          if (distance <= rc) {
+            pairs.add(particle1, particle2, distance);
+          }
+        }
+      }
+    }
+
+    return pairs;
+  }
+
+  @Override
+  public Map<Particle, Set<Neighbour>> apply(final List<Particle> particles, final double rc) {
+    return applyToParticles(particles, rc).toMap(particles);
+  }
+
+  @Override
+  public NeighbourList applyCompressed(final List<Particle> particles, final double rc) {
+    return NeighbourList.fromPairs(applyToParticles(particles, rc), particles.size());
+  }
+
+  private NeighbourPairs applyToParticles(final List<Particle> particles, final double rc) {
+    final int n = particles.size();
+    if (x.length < n) {
+      x = new double[n];
+      y = new double[n];
+      radius = new double[n];
+    }
+
+    int i = 0;
+    for (final Particle particle : particles) {
+      x[i] = particle.position().getX();
+      y[i] = particle.position().getY();
+      radius[i] = particle.radius();
+      i++;
+    }
+
+    return apply(x, y, radius, n, rc);
+  }
+
+  private void insertionSort(final int n) {
+    for (int k = 1; k < n; k++) {
+      final double key = lower[k];
+      final int particle = order[k];
+      int j = k - 1;
+
+      while (j >= 0 && lower[j] > key) {
+        lower[j + 1] = lower[j];
+        order[j + 1] = order[j];
+        j--;
+      }
+
+      lower[j + 1] = key;
+      order[j + 1] = particle;
+    }
+  }
+}
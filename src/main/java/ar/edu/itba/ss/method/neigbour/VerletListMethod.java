@@ -0,0 +1,188 @@
+package ar.edu.itba.ss.method.neigbour;
+
+import ar.edu.itba.ss.model.ImmutableParticle;
+import ar.edu.itba.ss.model.Neighbour;
+import ar.edu.itba.ss.model.NeighbourList;
+import ar.edu.itba.ss.model.NeighbourPairs;
+import ar.edu.itba.ss.model.Particle;
+import ar.edu.itba.ss.model.Point2D;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+public class VerletListMethod implements NeighbourFindingMethod, IndexedNeighbourFindingMethod {
+
+  private final NeighbourFindingMethod buildMethod;
+  private final double skin;
+  private final NeighbourPairs candidates;
+  private final NeighbourPairs pairs;
+  private double[] x;
+  private double[] y;
+  private double[] radius;
+  private double[] referenceX;
+  private double[] referenceY;
+  private double[] referenceRadius;
+  private int builtParticles;
+  private double builtRc;
+  private int rebuilds;
+
+  public VerletListMethod(final NeighbourFindingMethod buildMethod, final double skin) {
+    if (skin <= 0) {
+      throw new IllegalArgumentException("Skin has to be positive");
+    }
+
+    this.buildMethod = Objects.requireNonNull(buildMethod);
+    this.skin = skin;
+    this.candidates = new NeighbourPairs();
+    this.pairs = new NeighbourPairs();
+    this.x = new double[0];
+    this.y = new double[0];
+    this.radius = new double[0];
+    this.referenceX = new double[0];
+    this.referenceY = new double[0];
+    this.referenceRadius = new double[0];
+    this.builtRc = Double.NaN;
+  }
+
+  @Override
+  public Map<Particle, Set<Neighbour>> apply(final List<Particle> particles, final double rc) {
+    final int n = particles.size();
+    if (x.length < n) {
+      x = new double[n];
+      y = new double[n];
+      radius = new double[n];
+    }
+
+    int slot = 0;
+    for (final Particle particle : particles) {
+      x[slot] = particle.position().getX();
+      y[slot] = particle.position().getY();
+      radius[slot] = particle.radius();
+      slot++;
+    }
+
+    if (!isValid(x, y, radius, n, rc)) {
+      // The compressed list is indexed by list position as well
+      final NeighbourList neighbours = buildMethod.applyCompressed(particles, rc + skin);
+      candidates.clear();
+      for (int particle = 0; particle < n; particle++) {
+        for (int k = neighbours.start(particle); k < neighbours.end(particle); k++) {
+          if (particle < neighbours.neighbour(k)) {
+            candidates.add(particle, neighbours.neighbour(k), neighbours.distance(k));
+          }
+        }
+      }
+
+      built(x, y, radius, n, rc);
+    }
+
+    return filter(x, y, radius, n, rc).toMap(particles);
+  }
+
+  // The pairs are reused by the next call
+  @Override
+  public NeighbourPairs apply(final double[] x, final double[] y, final double[] radius,
+      final int n, final double rc) {
+    if (!isValid(x, y, radius, n, rc)) {
+      candidates.clear();
+      if (buildMethod instanceof IndexedNeighbourFindingMethod) {
+        candidates.addAll(((IndexedNeighbourFindingMethod) buildMethod)
+            .apply(x, y, radius, n, rc + skin));
+      } else {
+        candidates.addAll(buildFromViews(x, y, radius, n, rc + skin));
+      }
+
+      built(x, y, radius, n, rc);
+    }
+
+    return filter(x, y, radius, n, rc);
+  }
+
+  public NeighbourFindingMethod getBuildMethod() {
+    return buildMethod;
+  }
+
+  public int getRebuilds() {
+    return rebuilds;
+  }
+
+  // Slots are positions, so whichever particle is now in a slot only has to stay within half the
+  // skin of the position the slot had when the list was built, with the same radius
+  private boolean isValid(final double[] x, final double[] y, final double[] radius,
+      final int n, final double rc) {
+    if (rc != builtRc || n != builtParticles) {
+      return false;
+    }
+
+    final double maxDisplacement = skin / 2;
+    for (int slot = 0; slot < n; slot++) {
+      if (radius[slot] != referenceRadius[slot] || Point2D.distance(x[slot], y[slot],
+          referenceX[slot], referenceY[slot]) > maxDisplacement) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  private void built(final double[] x, final double[] y, final double[] radius, final int n,
+      final double rc) {
+    if (referenceX.length < n) {
+      referenceX = new double[n];
+      referenceY = new double[n];
+      referenceRadius = new double[n];
+    }
+
+    System.arraycopy(x, 0, referenceX, 0, n);
+    System.arraycopy(y, 0, referenceY, 0, n);
+    System.arraycopy(radius, 0, referenceRadius, 0, n);
+    builtParticles = n;
+    builtRc = rc;
+    rebuilds++;
+  }
+
+  private NeighbourPairs filter(final double[] x, final double[] y, final double[] radius,
+      final int n, final double rc) {
+    pairs.clear();
+
+    for (int pair = 0; pair < candidates.size(); pair++) {
+      final int particle1 = candidates.first(pair);
+      final int particle2 = candidates.second(pair);
+      final double distance = Point2D.distance(x[particle1], y[particle1], x[particle2],
+          y[particle2]) - radius[particle1] - radius[particle2];
+
+      if (distance <= rc) {
+        pairs.add(particle1, particle2, distance);
+      }
+    }
+
+    return pairs;
+  }
+
+  // Build methods that only take particles get views of the arrays, with the slot as id
+  private NeighbourPairs buildFromViews(final double[] x, final double[] y,
+      final double[] radius, final int n, final double rc) {
+    final List<Particle> views = new ArrayList<>(n);
+    for (int slot = 0; slot < n; slot++) {
+      views.add(ImmutableParticle.builder()
+          .id(slot)
+          .radius(radius[slot])
+          .position(new Point2D(x[slot], y[slot]))
+          .build());
+    }
+
+    final NeighbourList neighbours = buildMethod.applyCompressed(views, rc);
+    final NeighbourPairs viewPairs = new NeighbourPairs();
+    for (int particle = 0; particle < n; particle++) {
+      for (int k = neighbours.start(particle); k < neighbours.end(particle); k++) {
+        if (particle < neighbours.neighbour(k)) {
+          viewPairs.add(particle, neighbours.neighbour(k), neighbours.distance(k));
+        }
+      }
+    }
+
+    return viewPairs;
+  }
+}
@@ -3,7 +3,6 @@ package ar.edu.itba.ss.model;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Optional;
-import javafx.geometry.Point2D;
 
 public class Collision implements Comparable<Collision> {
 
@@ -21,49 +20,39 @@ public class Collision implements Comparable<Collision> {
   public static Optional<Collision> withWall(final Particle particle, final Point2D start,
       final Point2D end) {
 
-    if (particle.velocity().equals(Point2D.ZERO)) {
+    final double elapsedTime = wallCollisionTime(particle.position().getX(),
+        particle.position().getY(), particle.velocity().getX(), particle.velocity().getY(),
+        particle.radius(), start.getX(), start.getY(), end.getX(), end.getY());
+    if (elapsedTime == Double.POSITIVE_INFINITY) {
       return Optional.empty();
     }
 
-    double destination, position, velocity;
-    Point2D newVelocity;
-    boolean vertical;
-    if (start.getY() == end.getY() && start.getX() != end.getX()) {
-      // Horizontal
-      vertical = false;
-      position = particle.position().getY();
-      velocity = particle.velocity().getY();
-      destination = start.getY();
-      newVelocity = new Point2D(particle.velocity().getX(), -1 * particle.velocity().getY());
-    } else if (start.getX() == end.getX() && start.getY() != end.getY()) {
-      // Vertical
-      vertical = true;
-      position = particle.position().getX();
-      velocity = particle.velocity().getX();
-      destination = start.getX();
-      newVelocity = new Point2D(-1 * particle.velocity().getX(), particle.velocity().getY());
-    } else {
-      throw new IllegalArgumentException("Unsupported wall");
-    }
+    return Optional.of(wallCollision(particle, start, end, elapsedTime));
+  }
 
-    final double elapsedTime =
-        (destination + (velocity > 0 ? -1 : 1) * particle.radius() - position) / velocity;
-    if (elapsedTime < 0) {
-      return Optional.empty();
-    }
+  public static Collision wallCollision(final Particle particle, final Point2D start,
+      final Point2D end, final double elapsedTime) {
 
     final Point2D newPosition = Points
         .linearMotion(particle.position(), particle.velocity(), elapsedTime);
-
-    if (vertical) {
-      if (newPosition.getY() < start.getY() || newPosition.getY() > end.getY()) {
-        return Optional.empty();
-      }
-    } else {
-      if (newPosition.getX() < start.getX() || newPosition.getX() > end.getX()) {
-        return Optional.empty();
-      }
-    }
+    final double vx = particle.velocity().getX();
+    final double vy = particle.velocity().getY();
+
+    // Reflect along the normal that joins the closest point of the wall and the particle,
+    // which also covers hitting one of the wall ends
+    final double wallX = end.getX() - start.getX();
+    final double wallY = end.getY() - start.getY();
+    final double u = Math.max(0, Math.min(1,
+        Point2D.dotProduct(newPosition.getX() - start.getX(), newPosition.getY() - start.getY(),
+            wallX, wallY) / Point2D.dotProduct(wallX, wallY, wallX, wallY)));
+    final double dx = newPosition.getX() - (start.getX() + wallX * u);
+    final double dy = newPosition.getY() - (start.getY() + wallY * u);
+    final double distance = Point2D.magnitude(dx, dy);
+    final double normalX = distance == 0 ? 0 : dx / distance;
+    final double normalY = distance == 0 ? 0 : dy / distance;
+    final double reflection = 2 * Point2D.dotProduct(vx, vy, normalX, normalY);
+    final Point2D newVelocity = new Point2D(vx - normalX * reflection,
+        vy - normalY * reflection);
 
     final List<Particle> particlesAfterCollision = new LinkedList<>();
     particlesAfterCollision.add(ImmutableParticle.builder()
@@ -74,39 +63,87 @@ public class Collision implements Comparable<Collision> {
 
     double pressure = StateEquations.pressure(particle, start.distance(end));
 
-    return Optional.of(new Collision(particlesAfterCollision, elapsedTime, pressure));
+    return new Collision(particlesAfterCollision, elapsedTime, pressure);
+  }
+
+  public static double wallCollisionTime(final double x, final double y, final double vx,
+      final double vy, final double radius, final double startX, final double startY,
+      final double endX, final double endY) {
+
+    final double wallX = endX - startX;
+    final double wallY = endY - startY;
+    final double length = Math.sqrt(wallX * wallX + wallY * wallY);
+    if (length == 0) {
+      throw new IllegalArgumentException("Unsupported wall");
+    }
+
+    final double normalX = -wallY / length;
+    final double normalY = wallX / length;
+    final double distance = (x - startX) * normalX + (y - startY) * normalY;
+    final double normalVelocity = vx * normalX + vy * normalY;
+
+    if (distance * normalVelocity < 0) {
+      final double elapsedTime = (Math.abs(distance) - radius) / Math.abs(normalVelocity);
+
+      if (elapsedTime >= 0) {
+        final double u = ((x + vx * elapsedTime - startX) * wallX
+            + (y + vy * elapsedTime - startY) * wallY) / (length * length);
+
+        if (u >= 0 && u <= 1) {
+          return elapsedTime;
+        }
+      }
+    }
+
+    // Wall ends behave like fixed particles without radius
+    return Math.min(
+        particleCollisionTime(x, y, vx, vy, radius, startX, startY, 0, 0, 0),
+        particleCollisionTime(x, y, vx, vy, radius, endX, endY, 0, 0, 0));
   }
 
   public static Optional<Collision> withParticle(final Particle particle1,
       final Particle particle2) {
 
-    final double elapsedTime = collisionTime(particle1, particle2);
+    final double elapsedTime = particleCollisionTime(particle1.position().getX(),
+        particle1.position().getY(), particle1.velocity().getX(), particle1.velocity().getY(),
+        particle1.radius(), particle2.position().getX(), particle2.position().getY(),
+        particle2.velocity().getX(), particle2.velocity().getY(), particle2.radius());
     if (elapsedTime == Double.POSITIVE_INFINITY) {
       return Optional.empty();
     }
 
-    return Optional
-        .of(new Collision(collide(particle1, particle2, elapsedTime), elapsedTime, 0));
+    return Optional.of(particleCollision(particle1, particle2, elapsedTime));
   }
 
-  private static double collisionTime(final Particle particle1, final Particle particle2) {
-    final Point2D deltaV = particle2.velocity().subtract(particle1.velocity());
-    final Point2D deltaR = particle2.position().subtract(particle1.position());
-    final double deltaVxR = deltaV.dotProduct(deltaR);
+  public static Collision particleCollision(final Particle particle1, final Particle particle2,
+      final double elapsedTime) {
+    return new Collision(collide(particle1, particle2, elapsedTime), elapsedTime, 0);
+  }
+
+  public static double particleCollisionTime(final double x1, final double y1, final double vx1,
+      final double vy1, final double radius1, final double x2, final double y2, final double vx2,
+      final double vy2, final double radius2) {
+
+    final double deltaVx = vx2 - vx1;
+    final double deltaVy = vy2 - vy1;
+    final double deltaRx = x2 - x1;
+    final double deltaRy = y2 - y1;
+    final double deltaVxR = deltaVx * deltaRx + deltaVy * deltaRy;
 
     if (deltaVxR >= 0) {
       return Double.POSITIVE_INFINITY;
     }
 
-    final double sigma = particle1.radius() + particle2.radius();
-    final double d = deltaVxR * deltaVxR - deltaV.dotProduct(deltaV) *
-        (deltaR.dotProduct(deltaR) - sigma * sigma);
+    final double deltaVxV = deltaVx * deltaVx + deltaVy * deltaVy;
+    final double sigma = radius1 + radius2;
+    final double d = deltaVxR * deltaVxR - deltaVxV *
+        (deltaRx * deltaRx + deltaRy * deltaRy - sigma * sigma);
 
     if (d < 0) {
       return Double.POSITIVE_INFINITY;
     }
 
-    return (-1) * (deltaVxR + Math.sqrt(d)) / deltaV.dotProduct(deltaV);
+    return (-1) * (deltaVxR + Math.sqrt(d)) / deltaVxV;
   }
 
   private static final List<Particle> collide(final Particle particle1, final Particle particle2,
@@ -117,9 +154,11 @@ public class Collision implements Comparable<Collision> {
     final Point2D newPositionP2 = Points
         .linearMotion(particle2.position(), particle2.velocity(), time);
 
-    final Point2D deltaV = particle2.velocity().subtract(particle1.velocity());
-    final Point2D deltaR = newPositionP2.subtract(newPositionP1);
-    final double deltaVxR = deltaV.dotProduct(deltaR);
+    final double deltaVx = particle2.velocity().getX() - particle1.velocity().getX();
+    final double deltaVy = particle2.velocity().getY() - particle1.velocity().getY();
+    final double deltaRx = newPositionP2.getX() - newPositionP1.getX();
+    final double deltaRy = newPositionP2.getY() - newPositionP1.getY();
+    final double deltaVxR = Point2D.dotProduct(deltaVx, deltaVy, deltaRx, deltaRy);
     final double sigma = particle1.radius() + particle2.radius();
 
     double j;
@@ -132,18 +171,21 @@ public class Collision implements Comparable<Collision> {
           + particle2.mass()));
     }
 
-    final Point2D jVector = deltaR.multiply(j / sigma);
+    final double jx = deltaRx * (j / sigma);
+    final double jy = deltaRy * (j / sigma);
 
     final List<Particle> particlesAfterCollision = new LinkedList<>();
     particlesAfterCollision.add(ImmutableParticle.builder()
         .from(particle1)
         .position(newPositionP1)
-        .velocity(particle1.velocity().add(jVector.multiply((double) 1 / particle1.mass())))
+        .velocity(particle1.velocity().add(jx * ((double) 1 / particle1.mass()),
+            jy * ((double) 1 / particle1.mass())))
         .build());
     particlesAfterCollision.add(ImmutableParticle.builder()
         .from(particle2)
         .position(newPositionP2)
-        .velocity(particle2.velocity().subtract(jVector.multiply((double) 1 / particle2.mass())))
+        .velocity(particle2.velocity().subtract(jx * ((double) 1 / particle2.mass()),
+            jy * ((double) 1 / particle2.mass())))
         .build());
 
     return particlesAfterCollision;
@@ -0,0 +1,89 @@
+package ar.edu.itba.ss.model;
+
+public class CollisionEvent implements Comparable<CollisionEvent> {
+
+  private final Type type;
+  private final double time;
+  private final int particle;
+  private final int particleCollisions;
+  private final int partner;
+  private final int partnerCollisions;
+
+  private CollisionEvent(final Type type, final double time, final int particle,
+      final int particleCollisions, final int partner, final int partnerCollisions) {
+    this.type = type;
+    this.time = time;
+    this.particle = particle;
+    this.particleCollisions = particleCollisions;
+    this.partner = partner;
+    this.partnerCollisions = partnerCollisions;
+  }
+
+  public static CollisionEvent withParticle(final double time, final int particle,
+      final int particleCollisions, final int partner, final int partnerCollisions) {
+    return new CollisionEvent(Type.PARTICLE, time, particle, particleCollisions, partner,
+        partnerCollisions);
+  }
+
+  public static CollisionEvent withWall(final double time, final int particle,
+      final int particleCollisions, final int wall) {
+    return new CollisionEvent(Type.WALL, time, particle, particleCollisions, wall, 0);
+  }
+
+  public static CollisionEvent cellCrossing(final double time, final int particle,
+      final int particleCollisions, final int targetCell) {
+    return new CollisionEvent(Type.CELL_CROSSING, time, particle, particleCollisions, targetCell,
+        0);
+  }
+
+  public Type getType() {
+    return type;
+  }
+
+  public double getTime() {
+    return time;
+  }
+
+  public int getParticle() {
+    return particle;
+  }
+
+  public int getParticleCollisions() {
+    return particleCollisions;
+  }
+
+  public int getPartner() {
+    return partner;
+  }
+
+  public int getPartnerCollisions() {
+    return partnerCollisions;
+  }
+
+  public int getWall() {
+    return partner;
+  }
+
+  public int getTargetCell() {
+    return partner;
+  }
+
+  public boolean isWallCollision() {
+    return type == Type.WALL;
+  }
+
+  public boolean isCellCrossing() {
+    return type == Type.CELL_CROSSING;
+  }
+
+  @Override
+  public int compareTo(final CollisionEvent other) {
+    return Double.compare(this.time, other.time);
+  }
+
+  public enum Type {
+    PARTICLE,
+    WALL,
+    CELL_CROSSING
+  }
+}
@@ -0,0 +1,134 @@
+package ar.edu.itba.ss.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class Container {
+
+  private final Point2D[][] walls;
+
+  public Container(final List<Point2D[]> walls) {
+    if (walls.isEmpty()) {
+      throw new IllegalArgumentException("Container needs at least one wall");
+    }
+
+    for (final Point2D[] wall : walls) {
+      if (wall.length != 2 || wall[0].equals(wall[1])) {
+        throw new IllegalArgumentException("Invalid wall");
+      }
+    }
+
+    this.walls = walls.toArray(new Point2D[0][]);
+  }
+
+  public static Container gasDiffusionBox(final double boxWidth, final double boxHeight,
+      final double middleGap) {
+    return new Container(Arrays.asList(
+        new Point2D[]{Point2D.ZERO, new Point2D(0, boxHeight)},
+        new Point2D[]{new Point2D(boxWidth / 2, 0),
+            new Point2D(boxWidth / 2, boxHeight / 2 - middleGap / 2)},
+        new Point2D[]{new Point2D(boxWidth / 2, boxHeight / 2 + middleGap / 2),
+            new Point2D(boxWidth / 2, boxHeight)},
+        new Point2D[]{new Point2D(boxWidth, 0), new Point2D(boxWidth, boxHeight)},
+        new Point2D[]{Point2D.ZERO, new Point2D(boxWidth, 0)},
+        new Point2D[]{new Point2D(0, boxHeight), new Point2D(boxWidth, boxHeight)}
+    ));
+  }
+
+  public int getWalls() {
+    return walls.length;
+  }
+
+  public Point2D getStart(final int wall) {
+    return walls[wall][0];
+  }
+
+  public Point2D getEnd(final int wall) {
+    return walls[wall][1];
+  }
+
+  public double getLength(final int wall) {
+    return walls[wall][0].distance(walls[wall][1]);
+  }
+
+  public double getMinX() {
+    return Arrays.stream(walls)
+        .mapToDouble(w -> Math.min(w[0].getX(), w[1].getX()))
+        .min().getAsDouble();
+  }
+
+  public double getMinY() {
+    return Arrays.stream(walls)
+        .mapToDouble(w -> Math.min(w[0].getY(), w[1].getY()))
+        .min().getAsDouble();
+  }
+
+  public double getMaxX() {
+    return Arrays.stream(walls)
+        .mapToDouble(w -> Math.max(w[0].getX(), w[1].getX()))
+        .max().getAsDouble();
+  }
+
+  public double getMaxY() {
+    return Arrays.stream(walls)
+        .mapToDouble(w -> Math.max(w[0].getY(), w[1].getY()))
+        .max().getAsDouble();
+  }
+
+  public int[][] wallsByCell(final double originX, final double originY, final int m,
+      final double cellLength, final double reach) {
+    final List<List<Integer>> cells = new ArrayList<>(m * m);
+    for (int i = 0; i < m * m; i++) {
+      cells.add(new ArrayList<>());
+    }
+
+    final double halfDiagonal = cellLength * Math.sqrt(2) / 2;
+
+    for (int wall = 0; wall < walls.length; wall++) {
+      final Point2D start = walls[wall][0];
+      final Point2D end = walls[wall][1];
+      final int minCol = clamp((Math.min(start.getX(), end.getX()) - reach - originX) / cellLength,
+          m);
+      final int maxCol = clamp((Math.max(start.getX(), end.getX()) + reach - originX) / cellLength,
+          m);
+      final int minRow = clamp((Math.min(start.getY(), end.getY()) - reach - originY) / cellLength,
+          m);
+      final int maxRow = clamp((Math.max(start.getY(), end.getY()) + reach - originY) / cellLength,
+          m);
+
+      for (int row = minRow; row <= maxRow; row++) {
+        for (int col = minCol; col <= maxCol; col++) {
+          final double centerX = originX + (col + 0.5) * cellLength;
+          final double centerY = originY + (row + 0.5) * cellLength;
+
+          if (distanceToWall(wall, centerX, centerY) <= reach + halfDiagonal) {
+            cells.get(row * m + col).add(wall);
+          }
+        }
+      }
+    }
+
+    final int[][] wallsByCell = new int[m * m][];
+    for (int i = 0; i < wallsByCell.length; i++) {
+      wallsByCell[i] = cells.get(i).stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    return wallsByCell;
+  }
+
+  public double distanceToWall(final int wall, final double x, final double y) {
+    final Point2D start = walls[wall][0];
+    final Point2D end = walls[wall][1];
+    final double dx = end.getX() - start.getX();
+    final double dy = end.getY() - start.getY();
+    final double u = Math.max(0, Math.min(1,
+        ((x - start.getX()) * dx + (y - start.getY()) * dy) / (dx * dx + dy * dy)));
+
+    return Math.hypot(x - (start.getX() + u * dx), y - (start.getY() + u * dy));
+  }
+
+  private static int clamp(final double index, final int m) {
+    return index < 0 ? 0 : index >= m ? m - 1 : (int) index;
+  }
+}
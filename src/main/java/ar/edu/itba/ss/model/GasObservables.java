@@ -0,0 +1,138 @@
+package ar.edu.itba.ss.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+public class GasObservables {
+
+  private static final int INITIAL_BINS = 64;
+
+  private final double binWidth;
+  private final double[] wallLengths;
+  private final double totalWallLength;
+
+  private double[][] impulses;
+  private double[] massVelocitySquaredSums;
+  private int bins;
+  private double massVelocitySquaredSum;
+  private int particles;
+
+  public GasObservables(final double binWidth, final double[] wallLengths) {
+    if (binWidth <= 0) {
+      throw new IllegalArgumentException("Bin width has to be positive");
+    }
+
+    this.binWidth = binWidth;
+    this.wallLengths = wallLengths.clone();
+    this.totalWallLength = Arrays.stream(wallLengths).sum();
+    this.impulses = new double[INITIAL_BINS][];
+    this.massVelocitySquaredSums = new double[INITIAL_BINS];
+  }
+
+  public void reset(final Collection<Particle> initialParticles) {
+    bins = 0;
+    massVelocitySquaredSum = 0;
+    particles = 0;
+
+    for (final Particle particle : initialParticles) {
+      if (particle.id() > 0) {
+        massVelocitySquaredSum += massVelocitySquared(particle);
+        particles++;
+      }
+    }
+  }
+
+  public void advance(final double time) {
+    bin(time);
+  }
+
+  public void velocityChanged(final double time, final Particle before, final Particle after) {
+    final int bin = bin(time);
+
+    if (before.id() > 0) {
+      massVelocitySquaredSum += massVelocitySquared(after) - massVelocitySquared(before);
+    }
+
+    massVelocitySquaredSums[bin] = massVelocitySquaredSum;
+  }
+
+  public void wallHit(final double time, final int wall, final Particle before,
+      final Particle after) {
+    final double impulse = before.mass() * Point2D.distance(after.velocity().getX(),
+        after.velocity().getY(), before.velocity().getX(), before.velocity().getY());
+
+    // The bin has to exist before the array is read, as adding it can replace the array
+    final int bin = bin(time);
+    impulses[bin][wall] += impulse;
+    velocityChanged(time, before, after);
+  }
+
+  public double temperature() {
+    return StateEquations.temperature(massVelocitySquaredSum, particles);
+  }
+
+  public double temperature(final int bin) {
+    return StateEquations.temperature(massVelocitySquaredSums[bin], particles);
+  }
+
+  public double pressure(final int bin, final int wall) {
+    return StateEquations.pressure(impulses[bin][wall], binWidth, wallLengths[wall]);
+  }
+
+  public double pressure(final int bin) {
+    return StateEquations.pressure(Arrays.stream(impulses[bin]).sum(), binWidth,
+        totalWallLength);
+  }
+
+  public int getBins() {
+    return bins;
+  }
+
+  public double getBinWidth() {
+    return binWidth;
+  }
+
+  public List<Point2D> getPressures() {
+    final List<Point2D> points = new ArrayList<>(bins);
+
+    for (int bin = 0; bin < bins; bin++) {
+      points.add(new Point2D((bin + 0.5) * binWidth, pressure(bin)));
+    }
+
+    return points;
+  }
+
+  public List<Point2D> getTemperatures() {
+    final List<Point2D> points = new ArrayList<>(bins);
+
+    for (int bin = 0; bin < bins; bin++) {
+      points.add(new Point2D((bin + 1) * binWidth, temperature(bin)));
+    }
+
+    return points;
+  }
+
+  private int bin(final double time) {
+    final int bin = (int) (time / binWidth);
+
+    while (bins <= bin) {
+      if (bins == impulses.length) {
+        impulses = Arrays.copyOf(impulses, bins * 2);
+        massVelocitySquaredSums = Arrays.copyOf(massVelocitySquaredSums, bins * 2);
+      }
+
+      impulses[bins] = new double[wallLengths.length];
+      massVelocitySquaredSums[bins] = massVelocitySquaredSum;
+      bins++;
+    }
+
+    return bin;
+  }
+
+  private static double massVelocitySquared(final Particle particle) {
+    return particle.mass() * (particle.velocity().getX() * particle.velocity().getX()
+        + particle.velocity().getY() * particle.velocity().getY());
+  }
+}
@@ -0,0 +1,159 @@
+package ar.edu.itba.ss.model;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class NeighbourList {
+
+  private int[] offsets;
+  private int[] indices;
+  private double[] distances;
+  private int[] next;
+  private int particles;
+
+  public NeighbourList() {
+    this(new int[1], new int[0], new double[0]);
+  }
+
+  private NeighbourList(final int[] offsets, final int[] indices, final double[] distances) {
+    this.offsets = offsets;
+    this.indices = indices;
+    this.distances = distances;
+    this.next = new int[0];
+    this.particles = offsets.length - 1;
+  }
+
+  public static NeighbourList fromPairs(final NeighbourPairs pairs, final int particles) {
+    final NeighbourList neighbours = new NeighbourList();
+    neighbours.update(pairs, particles);
+
+    return neighbours;
+  }
+
+  // Refills the list from the pairs, reusing its buffers when they are big enough
+  public void update(final NeighbourPairs pairs, final int particles) {
+    if (offsets.length < particles + 1) {
+      offsets = new int[particles + 1];
+      next = new int[particles];
+    }
+
+    Arrays.fill(offsets, 0, particles + 1, 0);
+    for (int pair = 0; pair < pairs.size(); pair++) {
+      offsets[pairs.first(pair) + 1]++;
+      offsets[pairs.second(pair) + 1]++;
+    }
+
+    for (int i = 0; i < particles; i++) {
+      offsets[i + 1] += offsets[i];
+    }
+
+    if (indices.length < offsets[particles]) {
+      indices = new int[offsets[particles] * 2];
+      distances = new double[indices.length];
+    }
+
+    System.arraycopy(offsets, 0, next, 0, particles);
+    for (int pair = 0; pair < pairs.size(); pair++) {
+      final int particle1 = pairs.first(pair);
+      final int particle2 = pairs.second(pair);
+
+      indices[next[particle1]] = particle2;
+      distances[next[particle1]++] = pairs.distance(pair);
+      indices[next[particle2]] = particle1;
+      distances[next[particle2]++] = pairs.distance(pair);
+    }
+
+    this.particles = particles;
+  }
+
+  public static NeighbourList fromMap(final List<Particle> particles,
+      final Map<Particle, Set<Neighbour>> neighbours) {
+
+    final int n = particles.size();
+    final Map<Particle, Integer> indexes = new HashMap<>();
+    int entries = 0;
+
+    for (int i = 0; i < n; i++) {
+      indexes.put(particles.get(i), i);
+      entries += neighbours.get(particles.get(i)).size();
+    }
+
+    final int[] offsets = new int[n + 1];
+    final int[] indices = new int[entries];
+    final double[] distances = new double[entries];
+
+    // Sets can hold the same neighbour twice when its distance was computed from both sides and
+    // rounded differently, so only the first one is kept
+    final int[] listedBy = new int[n];
+    Arrays.fill(listedBy, -1);
+
+    int k = 0;
+    for (int i = 0; i < n; i++) {
+      for (final Neighbour neighbour : neighbours.get(particles.get(i))) {
+        final Integer index = indexes.get(neighbour.getNeighbourParticle());
+
+        if (index == null) {
+          throw new IllegalArgumentException("Neighbour is not one of the particles");
+        }
+
+        if (listedBy[index] != i) {
+          listedBy[index] = i;
+          indices[k] = index;
+          distances[k++] = neighbour.getDistance();
+        }
+      }
+
+      offsets[i + 1] = k;
+    }
+
+    return new NeighbourList(offsets, indices, distances);
+  }
+
+  public int particles() {
+    return particles;
+  }
+
+  public int size() {
+    return offsets[particles];
+  }
+
+  public int start(final int particle) {
+    return offsets[particle];
+  }
+
+  public int end(final int particle) {
+    return offsets[particle + 1];
+  }
+
+  public int count(final int particle) {
+    return offsets[particle + 1] - offsets[particle];
+  }
+
+  public int neighbour(final int k) {
+    return indices[k];
+  }
+
+  public double distance(final int k) {
+    return distances[k];
+  }
+
+  public Map<Particle, Set<Neighbour>> toMap(final List<Particle> particles) {
+    final Map<Particle, Set<Neighbour>> neighbours = new HashMap<>();
+
+    for (int i = 0; i < particles(); i++) {
+      final Set<Neighbour> particleNeighbours = new HashSet<>();
+
+      for (int k = start(i); k < end(i); k++) {
+        particleNeighbours.add(new Neighbour(particles.get(indices[k]), distances[k]));
+      }
+
+      neighbours.put(particles.get(i), particleNeighbours);
+    }
+
+    return neighbours;
+  }
+}
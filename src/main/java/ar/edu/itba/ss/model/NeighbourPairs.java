@@ -0,0 +1,86 @@
+package ar.edu.itba.ss.model;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class NeighbourPairs {
+
+  private static final int INITIAL_CAPACITY = 64;
+
+  private int[] first;
+  private int[] second;
+  private double[] distances;
+  private int size;
+
+  public NeighbourPairs() {
+    this(INITIAL_CAPACITY);
+  }
+
+  public NeighbourPairs(final int capacity) {
+    this.first = new int[Math.max(capacity, 1)];
+    this.second = new int[first.length];
+    this.distances = new double[first.length];
+  }
+
+  public void clear() {
+    size = 0;
+  }
+
+  public void add(final int particle1, final int particle2, final double distance) {
+    if (size == first.length) {
+      first = Arrays.copyOf(first, size * 2);
+      second = Arrays.copyOf(second, size * 2);
+      distances = Arrays.copyOf(distances, size * 2);
+    }
+
+    first[size] = particle1;
+    second[size] = particle2;
+    distances[size] = distance;
+    size++;
+  }
+
+  public void addAll(final NeighbourPairs other) {
+    for (int pair = 0; pair < other.size; pair++) {
+      add(other.first[pair], other.second[pair], other.distances[pair]);
+    }
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public int first(final int pair) {
+    return first[pair];
+  }
+
+  public int second(final int pair) {
+    return second[pair];
+  }
+
+  public double distance(final int pair) {
+    return distances[pair];
+  }
+
+  public Map<Particle, Set<Neighbour>> toMap(final List<Particle> particles) {
+    final Map<Particle, Set<Neighbour>> neighbours = new HashMap<>();
+    final Particle[] indexed = particles.toArray(new Particle[0]);
+
+    for (final Particle particle : indexed) {
+      neighbours.put(particle, new HashSet<>());
+    }
+
+    for (int pair = 0; pair < size; pair++) {
+      final Particle particle1 = indexed[first[pair]];
+      final Particle particle2 = indexed[second[pair]];
+
+      neighbours.get(particle1).add(new Neighbour(particle2, distances[pair]));
+      neighbours.get(particle2).add(new Neighbour(particle1, distances[pair]));
+    }
+
+    return neighbours;
+  }
+}
@@ -1,6 +1,5 @@
 package ar.edu.itba.ss.model;
 
-import javafx.geometry.Point2D;
 import org.immutables.value.Value;
 
 @Value.Immutable
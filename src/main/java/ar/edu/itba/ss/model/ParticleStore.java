@@ -0,0 +1,184 @@
+package ar.edu.itba.ss.model;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+public class ParticleStore {
+
+  private static final int INITIAL_CAPACITY = 64;
+
+  private int[] ids;
+  private double[] x;
+  private double[] y;
+  private double[] vx;
+  private double[] vy;
+  private double[] ax;
+  private double[] ay;
+  private double[] r;
+  private double[] m;
+  private int size;
+  private int[] idScratch = new int[0];
+  private double[] scratch = new double[0];
+  private final List<Particle> view = new AbstractList<Particle>() {
+    @Override
+    public Particle get(final int slot) {
+      return particle(slot);
+    }
+
+    @Override
+    public int size() {
+      return size;
+    }
+  };
+
+  public ParticleStore() {
+    this(INITIAL_CAPACITY);
+  }
+
+  public ParticleStore(final int capacity) {
+    final int length = Math.max(capacity, 1);
+    this.ids = new int[length];
+    this.x = new double[length];
+    this.y = new double[length];
+    this.vx = new double[length];
+    this.vy = new double[length];
+    this.ax = new double[length];
+    this.ay = new double[length];
+    this.r = new double[length];
+    this.m = new double[length];
+  }
+
+  public static ParticleStore of(final Collection<Particle> particles) {
+    final ParticleStore store = new ParticleStore(particles.size());
+
+    for (final Particle particle : particles) {
+      store.add(particle);
+    }
+
+    return store;
+  }
+
+  public int add(final Particle particle) {
+    if (size == ids.length) {
+      grow(size * 2);
+    }
+
+    set(size, particle);
+    return size++;
+  }
+
+  public void set(final int slot, final Particle particle) {
+    ids[slot] = particle.id();
+    x[slot] = particle.position().getX();
+    y[slot] = particle.position().getY();
+    vx[slot] = particle.velocity().getX();
+    vy[slot] = particle.velocity().getY();
+    ax[slot] = 0;
+    ay[slot] = 0;
+    r[slot] = particle.radius();
+    m[slot] = particle.mass();
+  }
+
+  public void clear() {
+    size = 0;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  // Views are only built at the boundary with code that still works on particles
+  public Particle particle(final int slot) {
+    if (slot < 0 || slot >= size) {
+      throw new IndexOutOfBoundsException("Invalid slot " + slot);
+    }
+
+    return ImmutableParticle.builder()
+        .id(ids[slot])
+        .radius(r[slot])
+        .mass(m[slot])
+        .position(new Point2D(x[slot], y[slot]))
+        .velocity(new Point2D(vx[slot], vy[slot]))
+        .build();
+  }
+
+  public List<Particle> particles() {
+    return view;
+  }
+
+  // Slot i gets the particle that was in slot order[i]. Accelerations are kept with them.
+  public void reorder(final int[] order) {
+    if (scratch.length < size) {
+      idScratch = new int[size];
+      scratch = new double[size];
+    }
+
+    for (int i = 0; i < size; i++) {
+      idScratch[i] = ids[order[i]];
+    }
+    System.arraycopy(idScratch, 0, ids, 0, size);
+
+    for (final double[] values : new double[][]{x, y, vx, vy, ax, ay, r, m}) {
+      reorder(values, order, size, 1, scratch);
+    }
+  }
+
+  // Same as reorder for arrays with stride values per slot, kept by other classes
+  public static void reorder(final double[] values, final int[] order, final int n,
+      final int stride, final double[] scratch) {
+    for (int i = 0; i < n; i++) {
+      System.arraycopy(values, order[i] * stride, scratch, i * stride, stride);
+    }
+    System.arraycopy(scratch, 0, values, 0, n * stride);
+  }
+
+  public int id(final int slot) {
+    return ids[slot];
+  }
+
+  public double[] getX() {
+    return x;
+  }
+
+  public double[] getY() {
+    return y;
+  }
+
+  public double[] getVx() {
+    return vx;
+  }
+
+  public double[] getVy() {
+    return vy;
+  }
+
+  public double[] getAx() {
+    return ax;
+  }
+
+  public double[] getAy() {
+    return ay;
+  }
+
+  public double[] getRadius() {
+    return r;
+  }
+
+  public double[] getMass() {
+    return m;
+  }
+
+  private void grow(final int capacity) {
+    ids = Arrays.copyOf(ids, capacity);
+    x = Arrays.copyOf(x, capacity);
+    y = Arrays.copyOf(y, capacity);
+    vx = Arrays.copyOf(vx, capacity);
+    vy = Arrays.copyOf(vy, capacity);
+    ax = Arrays.copyOf(ax, capacity);
+    ay = Arrays.copyOf(ay, capacity);
+    r = Arrays.copyOf(r, capacity);
+    m = Arrays.copyOf(m, capacity);
+  }
+}
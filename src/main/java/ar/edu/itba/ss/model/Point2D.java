@@ -0,0 +1,121 @@
+package ar.edu.itba.ss.model;
+
+public class Point2D {
+
+  public static final Point2D ZERO = new Point2D(0, 0);
+
+  private final double x;
+  private final double y;
+
+  public Point2D(final double x, final double y) {
+    this.x = x;
+    this.y = y;
+  }
+
+  // Primitive versions of the operations, for loops that should not allocate
+
+  public static double magnitude(final double x, final double y) {
+    return Math.sqrt(x * x + y * y);
+  }
+
+  public static double distance(final double x1, final double y1, final double x2,
+      final double y2) {
+    return magnitude(x2 - x1, y2 - y1);
+  }
+
+  public static double dotProduct(final double x1, final double y1, final double x2,
+      final double y2) {
+    return x1 * x2 + y1 * y2;
+  }
+
+  public static double crossProduct(final double x1, final double y1, final double x2,
+      final double y2) {
+    return x1 * y2 - y1 * x2;
+  }
+
+  public double getX() {
+    return x;
+  }
+
+  public double getY() {
+    return y;
+  }
+
+  public Point2D add(final double x, final double y) {
+    return new Point2D(this.x + x, this.y + y);
+  }
+
+  public Point2D add(final Point2D point) {
+    return add(point.x, point.y);
+  }
+
+  public Point2D subtract(final double x, final double y) {
+    return new Point2D(this.x - x, this.y - y);
+  }
+
+  public Point2D subtract(final Point2D point) {
+    return subtract(point.x, point.y);
+  }
+
+  public Point2D multiply(final double factor) {
+    return new Point2D(x * factor, y * factor);
+  }
+
+  public Point2D normalize() {
+    final double magnitude = magnitude();
+
+    if (magnitude == 0) {
+      return ZERO;
+    }
+
+    return new Point2D(x / magnitude, y / magnitude);
+  }
+
+  public double magnitude() {
+    return magnitude(x, y);
+  }
+
+  public double distance(final double x, final double y) {
+    return distance(this.x, this.y, x, y);
+  }
+
+  public double distance(final Point2D point) {
+    return distance(point.x, point.y);
+  }
+
+  public double dotProduct(final double x, final double y) {
+    return dotProduct(this.x, this.y, x, y);
+  }
+
+  public double dotProduct(final Point2D point) {
+    return dotProduct(point.x, point.y);
+  }
+
+  @Override
+  public boolean equals(final Object o) {
+    if (this == o) {
+      return true;
+    }
+
+    if (!(o instanceof Point2D)) {
+      return false;
+    }
+
+    final Point2D point = (Point2D) o;
+
+    return Double.compare(point.x, x) == 0 && Double.compare(point.y, y) == 0;
+  }
+
+  @Override
+  public int hashCode() {
+    long bits = 7L;
+    bits = 31L * bits + Double.doubleToLongBits(x);
+    bits = 31L * bits + Double.doubleToLongBits(y);
+    return (int) (bits ^ (bits >> 32));
+  }
+
+  @Override
+  public String toString() {
+    return "Point2D [x = " + x + ", y = " + y + "]";
+  }
+}
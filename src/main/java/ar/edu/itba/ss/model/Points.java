@@ -1,7 +1,6 @@
 package ar.edu.itba.ss.model;
 
 import java.util.List;
-import javafx.geometry.Point2D;
 
 public abstract class Points {
 
@@ -27,8 +26,23 @@ public abstract class Points {
   }
 
   public static double normalAverage(final List<Point2D> points) {
-    return points.stream().map(Point2D::normalize).reduce(Point2D::add).get().magnitude()
-        / (double) points.size();
+    if (points.isEmpty()) {
+      throw new IllegalArgumentException("No points to average");
+    }
+
+    double sumX = 0;
+    double sumY = 0;
+
+    for (final Point2D point : points) {
+      final double magnitude = point.magnitude();
+
+      if (magnitude != 0) {
+        sumX += point.getX() / magnitude;
+        sumY += point.getY() / magnitude;
+      }
+    }
+
+    return Point2D.magnitude(sumX, sumY) / (double) points.size();
   }
 
   public static Point2D linearMotion(final Point2D position, final Point2D velocity,
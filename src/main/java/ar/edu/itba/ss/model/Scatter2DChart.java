@@ -3,7 +3,7 @@ package ar.edu.itba.ss.model;
 import java.util.List;
 import java.util.Objects;
 import javafx.application.Application;
-import javafx.geometry.Point2D;
+import javafx.application.Platform;
 import javafx.scene.Scene;
 import javafx.scene.chart.NumberAxis;
 import javafx.scene.chart.ScatterChart;
@@ -43,13 +43,15 @@ public class Scatter2DChart extends Application {
   }
 
   public static void addSeries(final String name, final List<Point2D> points) {
-    final Series<Number, Number> series = new Series<>();
+    Platform.runLater(() -> {
+      final Series<Number, Number> series = new Series<>();
 
-    series.setName(Objects.requireNonNull(name));
-    for (final Point2D point : points) {
-      series.getData().add(new Data<>(point.getX(), point.getY()));
-    }
-    Scatter2DChart.chart.getData().add(series);
+      series.setName(Objects.requireNonNull(name));
+      for (final Point2D point : points) {
+        series.getData().add(new Data<>(point.getX(), point.getY()));
+      }
+      Scatter2DChart.chart.getData().add(series);
+    });
   }
 
   public static void removeFirstSeries() {
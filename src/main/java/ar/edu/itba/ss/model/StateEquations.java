@@ -13,7 +13,15 @@ public abstract class StateEquations {
         .average().getAsDouble() / (BOLTZMANN_K * 2);
   }
 
+  public static double temperature(final double massVelocitySquaredSum, final int particles) {
+    return massVelocitySquaredSum / particles / (BOLTZMANN_K * 2);
+  }
+
   public static double pressure(final Particle particle, double length) {
     return 2 * particle.mass() * particle.velocity().magnitude() / length;
   }
+
+  public static double pressure(final double impulse, final double time, final double length) {
+    return impulse / (time * length);
+  }
 }
@@ -1,11 +1,11 @@
 package ar.edu.itba.ss.model.criteria;
 
 import ar.edu.itba.ss.model.Particle;
+import ar.edu.itba.ss.model.Point2D;
 import ar.edu.itba.ss.model.Points;
 import java.util.Collection;
 import java.util.List;
 import java.util.stream.Collectors;
-import javafx.geometry.Point2D;
 
 public class EquilibriumOscilationCriteria implements Criteria {
 
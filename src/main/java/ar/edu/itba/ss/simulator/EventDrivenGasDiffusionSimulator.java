@@ -0,0 +1,451 @@
+package ar.edu.itba.ss.simulator;
+
+import ar.edu.itba.ss.io.writer.ParticlesWriter;
+import ar.edu.itba.ss.method.neigbour.CellIndexMethod;
+import ar.edu.itba.ss.model.Collision;
+import ar.edu.itba.ss.model.CollisionEvent;
+import ar.edu.itba.ss.model.Container;
+import ar.edu.itba.ss.model.GasObservables;
+import ar.edu.itba.ss.model.ImmutableParticle;
+import ar.edu.itba.ss.model.Particle;
+import ar.edu.itba.ss.model.Point2D;
+import ar.edu.itba.ss.model.Points;
+import ar.edu.itba.ss.model.criteria.Criteria;
+import java.io.IOException;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+public class EventDrivenGasDiffusionSimulator implements Simulator {
+
+  private static final int NONE = -1;
+
+  private final double dt;
+  private final Container container;
+  private final boolean useCells;
+  private final boolean lazyAdvance;
+  private final GasObservables observables;
+  private final double originX;
+  private final double originY;
+  private final int m;
+  private final double cellLength;
+  private final int[][] wallsByCell;
+  private List<Particle> initialParticles;
+
+  private Particle[] particles;
+  private double[] clocks;
+  private double time;
+  private double lastTick;
+  private int[] collisions;
+  private PriorityQueue<CollisionEvent> events;
+  private int[] cellOfParticle;
+  // Particles of each cell as intrusive linked lists
+  private int[] head;
+  private int[] next;
+  private int[] previous;
+
+  private CollisionEvent.Type nextType;
+  private double nextElapsedTime;
+  private int nextPartner;
+
+  public EventDrivenGasDiffusionSimulator(final List<Particle> initialParticles,
+      final double boxWidth, final double boxHeight, final double middleGap, final double dt) {
+    this(initialParticles, boxWidth, boxHeight, middleGap, dt, false);
+  }
+
+  public EventDrivenGasDiffusionSimulator(final List<Particle> initialParticles,
+      final double boxWidth, final double boxHeight, final double middleGap, final double dt,
+      final boolean useCells) {
+    this(initialParticles, boxWidth, boxHeight, middleGap, dt, useCells, false);
+  }
+
+  public EventDrivenGasDiffusionSimulator(final List<Particle> initialParticles,
+      final double boxWidth, final double boxHeight, final double middleGap, final double dt,
+      final boolean useCells, final boolean lazyAdvance) {
+    this(initialParticles, Container.gasDiffusionBox(boxWidth, boxHeight, middleGap), dt,
+        useCells, lazyAdvance);
+  }
+
+  public EventDrivenGasDiffusionSimulator(final List<Particle> initialParticles,
+      final Container container, final double dt, final boolean useCells,
+      final boolean lazyAdvance) {
+    this.initialParticles = new ArrayList<>(initialParticles);
+    this.container = container;
+    this.dt = dt;
+    this.useCells = useCells;
+    this.lazyAdvance = lazyAdvance;
+    this.observables = new GasObservables(dt, IntStream.range(0, container.getWalls())
+        .mapToDouble(container::getLength)
+        .toArray());
+
+    final double width = container.getMaxX() - container.getMinX();
+    final double height = container.getMaxY() - container.getMinY();
+    final double l = width > height ? width : height;
+    final double maxRadius = initialParticles.stream()
+        .mapToDouble(Particle::radius)
+        .max().orElseThrow(IllegalArgumentException::new);
+    this.originX = container.getMinX();
+    this.originY = container.getMinY();
+    this.m = useCells ? CellIndexMethod.cellsPerSide(l, maxRadius, 0) : 1;
+    this.cellLength = l / m;
+    this.wallsByCell = container.wallsByCell(originX, originY, m, cellLength, maxRadius);
+  }
+
+  @Override
+  public Set<Particle> simulate(final Criteria endCriteria, final ParticlesWriter writer) {
+    particles = initialParticles.toArray(new Particle[0]);
+    clocks = new double[particles.length];
+    collisions = new int[particles.length];
+    events = new PriorityQueue<>();
+    observables.reset(initialParticles);
+    time = 0;
+    lastTick = 0;
+
+    // Particles are only moved to the current time when they are read
+    final List<Particle> currentParticles = new AbstractList<Particle>() {
+      @Override
+      public Particle get(final int index) {
+        return advanceTo(index, time);
+      }
+
+      @Override
+      public int size() {
+        return particles.length;
+      }
+    };
+
+    try {
+      writer.write(0, currentParticles);
+    } catch (final IOException exception) {
+      System.err.println("Can't save state at 0");
+    }
+
+    if (useCells) {
+      createCells();
+    }
+
+    for (int i = 0; i < particles.length; i++) {
+      predict(i);
+    }
+
+    while (!endCriteria.test(time, currentParticles)) {
+      // Lazy runs only have every particle at the current time on ticks, so they go from tick to
+      // tick and the end is only tested there
+      boolean tick = nextEvent(currentParticles, writer);
+      while (lazyAdvance && !tick) {
+        tick = nextEvent(currentParticles, writer);
+      }
+    }
+
+    advanceAll();
+    initialParticles = new ArrayList<>(currentParticles);
+    return new HashSet<>(currentParticles);
+  }
+
+  // Returns whether the event was a tick
+  private boolean nextEvent(final List<Particle> currentParticles, final ParticlesWriter writer) {
+    final CollisionEvent nextEvent = nextValidEvent();
+    // Ticks come dt after the last event, except in lazy runs where they are the only points with
+    // the whole state and have to come every dt
+    final double nextTick = lazyAdvance ? lastTick + dt : time + dt;
+
+    if (nextEvent.getTime() > nextTick) {
+      time = nextTick;
+      lastTick = nextTick;
+      observables.advance(time);
+      advanceAll();
+
+      try {
+        writer.write(time, currentParticles);
+      } catch (final IOException exception) {
+        System.err.println("Can't save state at " + time);
+      }
+
+      return true;
+    }
+
+    events.poll();
+    time = nextEvent.getTime();
+    if (!lazyAdvance) {
+      advanceAll();
+    }
+
+    if (nextEvent.isCellCrossing()) {
+      moveToCell(nextEvent.getParticle(), nextEvent.getTargetCell());
+      predict(nextEvent.getParticle());
+      return false;
+    }
+
+    final Collision collision = collide(nextEvent);
+
+    try {
+      // Lazy runs only hand out the particles of the collision, the rest are behind in time
+      if (lazyAdvance) {
+        writer.write(time, collision);
+      } else {
+        writer.write(time, currentParticles, collision);
+      }
+    } catch (final IOException exception) {
+      System.err.println("Can't save state at " + time);
+    }
+
+    resolve(nextEvent, collision);
+    return false;
+  }
+
+  private CollisionEvent nextValidEvent() {
+    CollisionEvent event = events.peek();
+
+    while (event != null) {
+      final int particle = event.getParticle();
+
+      if (event.getParticleCollisions() == collisions[particle]) {
+        if (event.getType() != CollisionEvent.Type.PARTICLE
+            || event.getPartnerCollisions() == collisions[event.getPartner()]) {
+          return event;
+        }
+
+        // Partner changed its trajectory, so this particle needs a new prediction
+        events.poll();
+        predict(particle);
+      } else {
+        events.poll();
+      }
+
+      event = events.peek();
+    }
+
+    throw new IllegalStateException("No collision found");
+  }
+
+  public GasObservables getObservables() {
+    return observables;
+  }
+
+  private Collision collide(final CollisionEvent event) {
+    final Particle particle = advanceTo(event.getParticle(), time);
+
+    if (event.isWallCollision()) {
+      return Collision.wallCollision(particle, container.getStart(event.getWall()),
+          container.getEnd(event.getWall()), 0);
+    }
+
+    return Collision.particleCollision(particle, advanceTo(event.getPartner(), time), 0);
+  }
+
+  private void resolve(final CollisionEvent event, final Collision collision) {
+    final List<Particle> particlesAfterCollision = collision.getParticlesAfterCollision();
+
+    if (event.isWallCollision()) {
+      observables.wallHit(time, event.getWall(), particles[event.getParticle()],
+          particlesAfterCollision.get(0));
+    } else {
+      observables.velocityChanged(time, particles[event.getParticle()],
+          particlesAfterCollision.get(0));
+      observables.velocityChanged(time, particles[event.getPartner()],
+          particlesAfterCollision.get(1));
+    }
+
+    particles[event.getParticle()] = particlesAfterCollision.get(0);
+    collisions[event.getParticle()]++;
+
+    if (!event.isWallCollision()) {
+      particles[event.getPartner()] = particlesAfterCollision.get(1);
+      collisions[event.getPartner()]++;
+      predict(event.getPartner());
+    }
+
+    predict(event.getParticle());
+  }
+
+  private void predict(final int index) {
+    final Particle particle = advanceTo(index, time);
+    final double x = particle.position().getX();
+    final double y = particle.position().getY();
+    final double vx = particle.velocity().getX();
+    final double vy = particle.velocity().getY();
+
+    nextType = null;
+    nextElapsedTime = Double.POSITIVE_INFINITY;
+
+    if (useCells) {
+      predictCellCrossing(index, x, y, vx, vy);
+
+      final int row = cellOfParticle[index] / m;
+      final int col = cellOfParticle[index] % m;
+      for (int neighbourRow = row - 1; neighbourRow <= row + 1; neighbourRow++) {
+        for (int neighbourCol = col - 1; neighbourCol <= col + 1; neighbourCol++) {
+          if (neighbourRow >= 0 && neighbourRow < m && neighbourCol >= 0 && neighbourCol < m) {
+            for (int other = head[neighbourRow * m + neighbourCol]; other != NONE;
+                other = next[other]) {
+              predictParticleCollision(index, other, x, y, vx, vy, particle.radius());
+            }
+          }
+        }
+      }
+    } else {
+      for (int other = 0; other < particles.length; other++) {
+        predictParticleCollision(index, other, x, y, vx, vy, particle.radius());
+      }
+    }
+
+    for (final int wall : wallsByCell[useCells ? cellOfParticle[index] : 0]) {
+      final Point2D start = container.getStart(wall);
+      final Point2D end = container.getEnd(wall);
+      final double elapsedTime = Collision.wallCollisionTime(x, y, vx, vy, particle.radius(),
+          start.getX(), start.getY(), end.getX(), end.getY());
+
+      if (elapsedTime < nextElapsedTime) {
+        nextType = CollisionEvent.Type.WALL;
+        nextElapsedTime = elapsedTime;
+        nextPartner = wall;
+      }
+    }
+
+    if (nextType == CollisionEvent.Type.PARTICLE) {
+      events.add(CollisionEvent.withParticle(time + nextElapsedTime, index, collisions[index],
+          nextPartner, collisions[nextPartner]));
+    } else if (nextType == CollisionEvent.Type.WALL) {
+      events.add(CollisionEvent.withWall(time + nextElapsedTime, index, collisions[index],
+          nextPartner));
+    } else if (nextType == CollisionEvent.Type.CELL_CROSSING) {
+      events.add(CollisionEvent.cellCrossing(time + nextElapsedTime, index, collisions[index],
+          nextPartner));
+    }
+  }
+
+  private void predictParticleCollision(final int index, final int other, final double x,
+      final double y, final double vx, final double vy, final double radius) {
+    if (other == index) {
+      return;
+    }
+
+    // Extrapolated in place so that candidates don't need to be advanced
+    final Particle particle = particles[other];
+    final double elapsedSinceUpdate = time - clocks[other];
+    final double otherVx = particle.velocity().getX();
+    final double otherVy = particle.velocity().getY();
+    final double elapsedTime = Collision.particleCollisionTime(x, y, vx, vy, radius,
+        particle.position().getX() + otherVx * elapsedSinceUpdate,
+        particle.position().getY() + otherVy * elapsedSinceUpdate, otherVx, otherVy,
+        particle.radius());
+
+    if (elapsedTime < nextElapsedTime) {
+      nextType = CollisionEvent.Type.PARTICLE;
+      nextElapsedTime = elapsedTime;
+      nextPartner = other;
+    }
+  }
+
+  private void predictCellCrossing(final int index, final double x, final double y,
+      final double vx, final double vy) {
+    final int row = cellOfParticle[index] / m;
+    final int col = cellOfParticle[index] % m;
+
+    double crossingTime = Double.POSITIVE_INFINITY;
+    int targetCell = -1;
+
+    if (vx > 0 && col + 1 < m) {
+      crossingTime = (originX + (col + 1) * cellLength - x) / vx;
+      targetCell = row * m + col + 1;
+    } else if (vx < 0 && col > 0) {
+      crossingTime = (originX + col * cellLength - x) / vx;
+      targetCell = row * m + col - 1;
+    }
+
+    if (vy > 0 && row + 1 < m) {
+      final double rowCrossingTime = (originY + (row + 1) * cellLength - y) / vy;
+      if (rowCrossingTime < crossingTime) {
+        crossingTime = rowCrossingTime;
+        targetCell = (row + 1) * m + col;
+      }
+    } else if (vy < 0 && row > 0) {
+      final double rowCrossingTime = (originY + row * cellLength - y) / vy;
+      if (rowCrossingTime < crossingTime) {
+        crossingTime = rowCrossingTime;
+        targetCell = (row - 1) * m + col;
+      }
+    }
+
+    if (targetCell >= 0) {
+      nextType = CollisionEvent.Type.CELL_CROSSING;
+      nextElapsedTime = Math.max(crossingTime, 0);
+      nextPartner = targetCell;
+    }
+  }
+
+  private void createCells() {
+    head = new int[m * m];
+    next = new int[particles.length];
+    previous = new int[particles.length];
+    cellOfParticle = new int[particles.length];
+    Arrays.fill(head, NONE);
+
+    for (int i = 0; i < particles.length; i++) {
+      final int row = cellIndex(particles[i].position().getY() - originY);
+      final int col = cellIndex(particles[i].position().getX() - originX);
+
+      link(i, row * m + col);
+    }
+  }
+
+  private int cellIndex(final double coordinate) {
+    final int index = (int) (coordinate / cellLength);
+
+    return index < 0 ? 0 : index >= m ? m - 1 : index;
+  }
+
+  private void moveToCell(final int index, final int targetCell) {
+    final int cell = cellOfParticle[index];
+
+    if (previous[index] != NONE) {
+      next[previous[index]] = next[index];
+    } else {
+      head[cell] = next[index];
+    }
+
+    if (next[index] != NONE) {
+      previous[next[index]] = previous[index];
+    }
+
+    link(index, targetCell);
+  }
+
+  private void link(final int index, final int cell) {
+    cellOfParticle[index] = cell;
+    previous[index] = NONE;
+    next[index] = head[cell];
+
+    if (head[cell] != NONE) {
+      previous[head[cell]] = index;
+    }
+
+    head[cell] = index;
+  }
+
+  private Particle advanceTo(final int index, final double time) {
+    if (clocks[index] != time) {
+      final Particle particle = particles[index];
+
+      particles[index] = ImmutableParticle.builder()
+          .from(particle)
+          .position(Points
+              .linearMotion(particle.position(), particle.velocity(), time - clocks[index]))
+          .build();
+      clocks[index] = time;
+    }
+
+    return particles[index];
+  }
+
+  private void advanceAll() {
+    for (int i = 0; i < particles.length; i++) {
+      advanceTo(i, time);
+    }
+  }
+}
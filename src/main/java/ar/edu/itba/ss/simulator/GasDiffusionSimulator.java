@@ -4,6 +4,7 @@ import ar.edu.itba.ss.io.writer.ParticlesWriter;
 import ar.edu.itba.ss.model.Collision;
 import ar.edu.itba.ss.model.ImmutableParticle;
 import ar.edu.itba.ss.model.Particle;
+import ar.edu.itba.ss.model.Point2D;
 import ar.edu.itba.ss.model.Points;
 import ar.edu.itba.ss.model.criteria.Criteria;
 import java.io.IOException;
@@ -13,7 +14,6 @@ import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
-import javafx.geometry.Point2D;
 
 public class GasDiffusionSimulator implements Simulator {
 
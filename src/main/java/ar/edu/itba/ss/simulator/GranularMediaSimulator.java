@@ -1,27 +1,40 @@
 package ar.edu.itba.ss.simulator;
 
 import ar.edu.itba.ss.io.writer.ParticlesWriter;
-import ar.edu.itba.ss.method.movement.MovementFunction;
-import ar.edu.itba.ss.method.neigbour.CellIndexMethod;
+import ar.edu.itba.ss.method.force.BoundaryForce;
+import ar.edu.itba.ss.method.force.ContactForceFunction;
+import ar.edu.itba.ss.method.movement.BatchMovementFunction;
+import ar.edu.itba.ss.method.movement.StepIntegrator;
+import ar.edu.itba.ss.method.neigbour.IndexedCellIndexMethod;
+import ar.edu.itba.ss.method.neigbour.IndexedNeighbourFindingMethod;
+import ar.edu.itba.ss.method.neigbour.NeighbourFindingMethodSelector;
+import ar.edu.itba.ss.method.neigbour.NeighbourFindingMethodSelector.Selection;
+import ar.edu.itba.ss.method.neigbour.SpaceFillingCurveReordering;
+import ar.edu.itba.ss.method.neigbour.VerletListMethod;
 import ar.edu.itba.ss.model.ImmutableParticle;
 import ar.edu.itba.ss.model.Neighbour;
+import ar.edu.itba.ss.model.NeighbourList;
+import ar.edu.itba.ss.model.NeighbourPairs;
 import ar.edu.itba.ss.model.Particle;
+import ar.edu.itba.ss.model.ParticleStore;
+import ar.edu.itba.ss.model.Physics;
+import ar.edu.itba.ss.model.Point2D;
 import ar.edu.itba.ss.model.criteria.Criteria;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ThreadLocalRandom;
-import java.util.stream.Collectors;
-import javafx.geometry.Point2D;
 
+// Particles live in a store that is stepped in place, so a step allocates nothing. Particle views
+// are only built for the writer and the end criteria.
 @SuppressWarnings("Duplicates")
 public class GranularMediaSimulator {
 
   private final List<Particle> initialParticles;
-  private final int amountOfParticles;
   private final double dt;
   private final int writerIteration;
   private final double boxWidth;
@@ -29,17 +42,74 @@ public class GranularMediaSimulator {
   private final double boxTop;
   private final double boxBottom;
   private final double gap;
-  private final CellIndexMethod cim;
+  private final IndexedNeighbourFindingMethod neighbourFindingMethod;
+  private final SpaceFillingCurveReordering reordering;
   private final double maxRadius;
-  private Map<Particle, MovementFunction> movementFunctions;
+  private final ContactForceFunction forceFunction;
+  private final BatchMovementFunction movementFunction;
+  private final StepIntegrator integrator;
+  private final BoundaryForce walls;
+  private final double[] wallPoints;
+  private final NeighbourList neighbours;
   private final List<Double> flowTimes;
   private int currentTimeFlowedParticles = 0;
 
   public GranularMediaSimulator(List<Particle> initialParticles, double dt, int writerIteration,
-      double boxWidth, double boxHeight, double gap,
-      Map<Particle, MovementFunction> movementFunctions) {
+      double boxWidth, double boxHeight, double gap, ContactForceFunction forceFunction,
+      BatchMovementFunction movementFunction) {
+    this(initialParticles, dt, writerIteration, boxWidth, boxHeight, gap, forceFunction,
+        movementFunction, false);
+  }
+
+  // With selectNeighbourFindingMethod the candidate methods are timed on the initial particles
+  // and the choice is logged, so the run can be repeated with the same method
+  public GranularMediaSimulator(List<Particle> initialParticles, double dt, int writerIteration,
+      double boxWidth, double boxHeight, double gap, ContactForceFunction forceFunction,
+      BatchMovementFunction movementFunction, boolean selectNeighbourFindingMethod) {
+    this(initialParticles, dt, writerIteration, boxWidth, boxHeight, gap, forceFunction,
+        movementFunction, selectNeighbourFindingMethod
+            ? selectNeighbourFindingMethod(initialParticles, dt, boxWidth, boxHeight)
+            : defaultNeighbourFindingMethod(initialParticles, boxWidth, boxHeight));
+  }
+
+  public GranularMediaSimulator(List<Particle> initialParticles, double dt, int writerIteration,
+      double boxWidth, double boxHeight, double gap, ContactForceFunction forceFunction,
+      BatchMovementFunction movementFunction,
+      IndexedNeighbourFindingMethod neighbourFindingMethod) {
+    this(initialParticles, dt, writerIteration, boxWidth, boxHeight, gap, forceFunction,
+        movementFunction, neighbourFindingMethod, null);
+  }
+
+  public GranularMediaSimulator(List<Particle> initialParticles, double dt, int writerIteration,
+      double boxWidth, double boxHeight, double gap, ContactForceFunction forceFunction,
+      BatchMovementFunction movementFunction,
+      IndexedNeighbourFindingMethod neighbourFindingMethod,
+      SpaceFillingCurveReordering reordering) {
+    this(initialParticles, dt, writerIteration, boxWidth, boxHeight, gap, forceFunction,
+        movementFunction, null, neighbourFindingMethod, reordering);
+  }
+
+  // Steps through TwoPhaseSimulator, with one force evaluation per particle per step
+  public GranularMediaSimulator(List<Particle> initialParticles, double dt, int writerIteration,
+      double boxWidth, double boxHeight, double gap, ContactForceFunction forceFunction,
+      StepIntegrator integrator) {
+    this(initialParticles, dt, writerIteration, boxWidth, boxHeight, gap, forceFunction,
+        integrator, defaultNeighbourFindingMethod(initialParticles, boxWidth, boxHeight));
+  }
+
+  public GranularMediaSimulator(List<Particle> initialParticles, double dt, int writerIteration,
+      double boxWidth, double boxHeight, double gap, ContactForceFunction forceFunction,
+      StepIntegrator integrator, IndexedNeighbourFindingMethod neighbourFindingMethod) {
+    this(initialParticles, dt, writerIteration, boxWidth, boxHeight, gap, forceFunction, null,
+        integrator, neighbourFindingMethod, null);
+  }
+
+  private GranularMediaSimulator(List<Particle> initialParticles, double dt,
+      int writerIteration, double boxWidth, double boxHeight, double gap,
+      ContactForceFunction forceFunction, BatchMovementFunction movementFunction,
+      StepIntegrator integrator, IndexedNeighbourFindingMethod neighbourFindingMethod,
+      SpaceFillingCurveReordering reordering) {
     this.initialParticles = initialParticles;
-    this.amountOfParticles = initialParticles.size();
     this.dt = dt;
     this.writerIteration = writerIteration;
     this.boxWidth = boxWidth;
@@ -47,28 +117,54 @@ public class GranularMediaSimulator {
     this.boxTop = boxHeight * 1.1;
     this.boxBottom = boxTop - boxHeight;
     this.gap = gap;
-    this.cim = new CellIndexMethod(boxTop > boxWidth ? boxTop : boxWidth, false);
-    this.movementFunctions = movementFunctions;
-    this.maxRadius = initialParticles.stream()
-        .mapToDouble(Particle::radius)
-        .max().orElseThrow(IllegalArgumentException::new);
+    this.neighbourFindingMethod = neighbourFindingMethod;
+    this.reordering = reordering;
+    this.forceFunction = forceFunction;
+    this.movementFunction = movementFunction;
+    this.integrator = integrator;
+    this.maxRadius = maxRadius(initialParticles);
+    this.walls = this::addWallForces;
+    // At most the left, right and bottom walls and both ends of the gap
+    this.wallPoints = new double[5 * 3];
+    this.neighbours = new NeighbourList();
     flowTimes = new LinkedList<>();
   }
 
   public List<Particle> simulate(final Criteria endCriteria, final ParticlesWriter writer) {
-    List<Particle> currentParticles = initialParticles;
+    if (integrator != null) {
+      return simulateInTwoPhases(endCriteria, writer);
+    }
+
+    final ParticleStore particles = ParticleStore.of(initialParticles);
     int iteration = 1;
     double time = 0;
 
-    while (!endCriteria.test(time, currentParticles, currentTimeFlowedParticles)) {
-      final Map<Particle, Set<Neighbour>> neighbours = cim.apply(currentParticles, maxRadius, 0);
-      currentParticles = nextParticles(neighbours, time);
+    while (!endCriteria.test(time, particles.particles(), currentTimeFlowedParticles)) {
+      if (reordering != null) {
+        final int[] order = reordering.apply(particles);
+
+        if (order != null) {
+          particles.reorder(order);
+          movementFunction.reorder(particles, order);
+        }
+      }
+
+      final NeighbourPairs pairs = neighbourFindingMethod.apply(particles.getX(),
+          particles.getY(), particles.getRadius(), particles.size(), 0);
+
+      // The writer gets the neighbours of the state before the step
+      final Map<Particle, Set<Neighbour>> writtenNeighbours = iteration == writerIteration
+          ? writtenNeighbours(particles, pairs) : null;
+
+      neighbours.update(pairs, particles.size());
+      movementFunction.move(particles, neighbours, walls, dt);
+      moveFlowedParticlesToTop(particles, time);
 
       if (iteration == writerIteration) {
 //        System.out.println("FLOWED: " + flowTimes.size());
         iteration = 0;
         try {
-          writer.write(time, neighbours);
+          writer.write(time, writtenNeighbours);
         } catch (IOException e) {
           e.printStackTrace();
         }
@@ -78,153 +174,206 @@ public class GranularMediaSimulator {
       iteration++;
     }
 
-    return currentParticles;
+    return new ArrayList<>(particles.particles());
   }
 
-  private List<Particle> nextParticles(final Map<Particle, Set<Neighbour>> neighbours,
-      double time) {
+  private List<Particle> simulateInTwoPhases(final Criteria endCriteria,
+      final ParticlesWriter writer) {
+    final ParticleStore particles = ParticleStore.of(initialParticles);
+
+    new TwoPhaseSimulator(particles, dt, writerIteration, 0, neighbourFindingMethod,
+        forceFunction, integrator, walls, this::moveFlowedParticlesToTop)
+        .simulate((time, current) -> endCriteria.test(time, current, currentTimeFlowedParticles),
+            new ParticlesWriter() {
+              @Override
+              public void write(final double time, final Collection<Particle> current)
+                  throws IOException {
+                writer.write(time, current);
+              }
+
+              // Writers get the same neighbours, walls included, as when stepping in batch
+              @Override
+              public void write(final double time, final ParticleStore current)
+                  throws IOException {
+                writer.write(time, writtenNeighbours(current, neighbourFindingMethod.apply(
+                    current.getX(), current.getY(), current.getRadius(), current.size(), 0)));
+              }
+            });
+
+    return new ArrayList<>(particles.particles());
+  }
+
+  // Slots are kept, so a spatial reordering survives between steps
+  private void moveFlowedParticlesToTop(final ParticleStore particles, final double time) {
+    final double[] x = particles.getX();
+    final double[] y = particles.getY();
+    final double[] radius = particles.getRadius();
     currentTimeFlowedParticles = 0;
-    final List<Particle> nextParticles = new ArrayList<>(neighbours.size());
-    final List<Particle> moveToTopParticles = new LinkedList<>();
 
-    for (final Map.Entry<Particle, Set<Neighbour>> entry : neighbours.entrySet()) {
-      final Particle movedParticle = moveParticle(entry.getKey(), entry.getValue());
+    for (int slot = 0; slot < particles.size(); slot++) {
+      if (shouldMoveParticle(x[slot], y[slot], radius[slot])) {
+        flowTimes.add(time);
+        currentTimeFlowedParticles++;
+        moveParticleToTop(particles, slot);
 
-      if (shouldMoveParticle(movedParticle)) {
-        moveToTopParticles.add(movedParticle);
-      } else {
-        nextParticles.add(movedParticle);
+        if (integrator != null) {
+          integrator.clearState(particles, slot);
+        } else {
+          movementFunction.clearState(particles, slot);
+        }
       }
     }
-
-    final List<Particle> topParticles = getTopParticles(nextParticles);
-    for (final Particle particle : moveToTopParticles) {
-      flowTimes.add(time);
-      currentTimeFlowedParticles++;
-      final Particle particleMovedToTop = moveParticleToTop(particle, topParticles);
-      nextParticles.add(particleMovedToTop);
-      topParticles.add(particleMovedToTop);
-      movementFunctions.get(particle).clearState(particleMovedToTop);
-    }
-
-    return nextParticles;
   }
 
-  private boolean shouldMoveParticle(final Particle particle) {
-    return particle.position().getY() - particle.radius() <= 0
-        || (particle.position().getY() <= boxBottom
-        && particle.position().getX() - particle.radius() <= 0)
-        || (particle.position().getY() <= boxBottom
-        && particle.position().getX() + particle.radius() >= boxWidth);
+  private boolean shouldMoveParticle(final double x, final double y, final double radius) {
+    return y - radius <= 0
+        || (y <= boxBottom && x - radius <= 0)
+        || (y <= boxBottom && x + radius >= boxWidth);
   }
 
-  private List<Particle> getTopParticles(final List<Particle> particles) {
-    return particles.stream()
-        .filter(p -> p.position().getY() >= boxTop - 4 * maxRadius)
-        .collect(Collectors.toList());
-  }
+  private void moveParticleToTop(final ParticleStore particles, final int slot) {
+    final double radius = particles.getRadius()[slot];
+    final double y = boxTop - radius;
+    double x;
 
-  private Particle moveParticle(final Particle particle, final Set<Neighbour> neighbours) {
-    addWallParticles(particle, neighbours);
+    do {
+      x = ThreadLocalRandom.current().nextDouble(radius, boxWidth - radius);
+    } while (isCollidingAtTop(particles, slot, x, y));
 
-    return movementFunctions.get(particle).move(particle, neighbours, dt);
+    particles.getX()[slot] = x;
+    particles.getY()[slot] = y;
+    particles.getVx()[slot] = 0;
+    particles.getVy()[slot] = 0;
+    // Placed without overlaps, only gravity acts on it
+    particles.getAx()[slot] = 0;
+    particles.getAy()[slot] = forceFunction.isGravity() ? -Physics.GRAVITY : 0;
   }
 
-  private Particle moveParticleToTop(final Particle particle, final List<Particle> topParticles) {
-    Particle newParticle;
+  private boolean isCollidingAtTop(final ParticleStore particles, final int slot,
+      final double x, final double y) {
+    final double[] positionsX = particles.getX();
+    final double[] positionsY = particles.getY();
+    final double[] radii = particles.getRadius();
 
-    do {
-      final Point2D newPosition = new Point2D(
-          ThreadLocalRandom.current().nextDouble(particle.radius(), boxWidth - particle.radius()),
-          boxTop - particle.radius());
+    for (int other = 0; other < particles.size(); other++) {
+      if (other != slot && positionsY[other] >= boxTop - 4 * maxRadius
+          && Point2D.distance(x, y, positionsX[other], positionsY[other]) - radii[slot]
+          - radii[other] < 0) {
+        return true;
+      }
+    }
 
-      newParticle = ImmutableParticle.builder().from(particle)
-          .position(newPosition)
-          .velocity(Point2D.ZERO)
-          .build();
-    } while (isColliding(newParticle, topParticles));
+    return false;
+  }
+
+  private void addWallForces(final ParticleStore particles, final int slot, final double x,
+      final double y, final double vx, final double vy, final double[] force) {
+    final double radius = particles.getRadius()[slot];
+    final int walls = findWalls(x, y, radius);
 
-    return newParticle;
+    for (int wall = 0; wall < walls; wall++) {
+      forceFunction.addPointForce(x, y, vx, vy, radius, wallPoints[3 * wall],
+          wallPoints[3 * wall + 1], force);
+    }
   }
 
-  private boolean isColliding(final Particle particle, final List<Particle> otherParticles) {
-    return otherParticles.stream().anyMatch(particle::collides);
+  // Writers see the walls a particle touches as fixed particles with negative ids
+  private Map<Particle, Set<Neighbour>> writtenNeighbours(final ParticleStore particles,
+      final NeighbourPairs pairs) {
+    final Map<Particle, Set<Neighbour>> neighbours = pairs.toMap(particles.particles());
+
+    for (final Map.Entry<Particle, Set<Neighbour>> entry : neighbours.entrySet()) {
+      final Particle particle = entry.getKey();
+      final int walls = findWalls(particle.position().getX(), particle.position().getY(),
+          particle.radius());
+
+      for (int wall = 0; wall < walls; wall++) {
+        entry.getValue().add(new Neighbour(ImmutableParticle.builder()
+            .id(-wall - 1)
+            .position(new Point2D(wallPoints[3 * wall], wallPoints[3 * wall + 1]))
+            .mass(Double.POSITIVE_INFINITY)
+            .radius(0)
+            .velocity(Point2D.ZERO)
+            .build(), wallPoints[3 * wall + 2]));
+      }
+    }
+
+    return neighbours;
   }
 
-  private void addWallParticles(final Particle particle, final Set<Neighbour> neighbours) {
-    int wallId = -1;
+  // Leaves the closest point and the distance of every wall the particle overlaps in wallPoints,
+  // as x, y and distance, and returns how many there are
+  private int findWalls(final double x, final double y, final double radius) {
+    int walls = 0;
 
     // left wall
-    double distanceToWall = particle.position().getX() - particle.radius();
+    double distanceToWall = x - radius;
     if (distanceToWall < 0) {
-      neighbours.add(new Neighbour(ImmutableParticle.builder()
-          .id(wallId--)
-          .position(new Point2D(0, particle.position().getY()))
-          .mass(Double.POSITIVE_INFINITY)
-          .radius(0)
-          .velocity(Point2D.ZERO)
-          .build(), distanceToWall));
+      walls = addWall(walls, 0, y, distanceToWall);
     }
 
     // right wall
-    distanceToWall = boxWidth - (particle.position().getX() + particle.radius());
+    distanceToWall = boxWidth - (x + radius);
     if (distanceToWall < 0) {
-      neighbours.add(new Neighbour(ImmutableParticle.builder()
-          .id(wallId--)
-          .position(new Point2D(boxWidth, particle.position().getY()))
-          .mass(Double.POSITIVE_INFINITY)
-          .radius(0)
-          .velocity(Point2D.ZERO)
-          .build(), distanceToWall));
+      walls = addWall(walls, boxWidth, y, distanceToWall);
     }
 
     // down wall
-    double gapStart = boxWidth / 2 - gap / 2;
-    double gapEnd = boxWidth - gapStart;
-    distanceToWall = Math.abs(particle.position().getY() - boxBottom) - particle.radius();
-    if (distanceToWall < 0
-        && (particle.position().getX() <= gapStart || particle.position().getX() >= gapEnd)) {
-      neighbours.add(new Neighbour(ImmutableParticle.builder()
-          .id(wallId--)
-          .position(new Point2D(particle.position().getX(), boxBottom))
-          .mass(Double.POSITIVE_INFINITY)
-          .radius(0)
-          .velocity(Point2D.ZERO)
-          .build(), distanceToWall));
+    final double gapStart = boxWidth / 2 - gap / 2;
+    final double gapEnd = boxWidth - gapStart;
+    distanceToWall = Math.abs(y - boxBottom) - radius;
+    if (distanceToWall < 0 && (x <= gapStart || x >= gapEnd)) {
+      walls = addWall(walls, x, boxBottom, distanceToWall);
     }
 
     // gap
-    if (particle.position().getX() > gapStart && particle.position().getX() < gapEnd) {
-      final Point2D gapStartPosition = new Point2D(gapStart, boxBottom);
-      final Point2D gapEndPosition = new Point2D(gapEnd, boxBottom);
-      final double gapStartDistance =
-          particle.position().distance(gapStartPosition) - particle.radius();
-      final double gapEndDistance =
-          particle.position().distance(gapEndPosition) - particle.radius();
+    if (x > gapStart && x < gapEnd) {
+      final double gapStartDistance = Point2D.distance(x, y, gapStart, boxBottom) - radius;
+      final double gapEndDistance = Point2D.distance(x, y, gapEnd, boxBottom) - radius;
 
       if (gapStartDistance < 0) {
-        neighbours.add(new Neighbour(ImmutableParticle.builder()
-            .id(wallId--)
-            .position(gapStartPosition)
-            .mass(Double.POSITIVE_INFINITY)
-            .radius(0)
-            .velocity(Point2D.ZERO)
-            .build(), distanceToWall));
+        walls = addWall(walls, gapStart, boxBottom, gapStartDistance);
       }
 
       if (gapEndDistance < 0) {
-        neighbours.add(new Neighbour(ImmutableParticle.builder()
-            .id(wallId--)
-            .position(gapEndPosition)
-            .mass(Double.POSITIVE_INFINITY)
-            .radius(0)
-            .velocity(Point2D.ZERO)
-            .build(), distanceToWall));
+        walls = addWall(walls, gapEnd, boxBottom, gapEndDistance);
       }
     }
+
+    return walls;
+  }
+
+  private int addWall(final int wall, final double x, final double y, final double distance) {
+    wallPoints[3 * wall] = x;
+    wallPoints[3 * wall + 1] = y;
+    wallPoints[3 * wall + 2] = distance;
+
+    return wall + 1;
   }
 
   public List<Double> getFlowTimes() {
     return flowTimes;
   }
+
+  private static IndexedNeighbourFindingMethod selectNeighbourFindingMethod(
+      final List<Particle> initialParticles, final double dt, final double boxWidth,
+      final double boxHeight) {
+    final Selection selection = new NeighbourFindingMethodSelector(boxWidth, boxHeight * 1.1,
+        false).selectIndexed(initialParticles, 0, dt);
+    selection.print(System.err);
+
+    return (IndexedNeighbourFindingMethod) selection.getMethod();
+  }
+
+  private static IndexedNeighbourFindingMethod defaultNeighbourFindingMethod(
+      final List<Particle> initialParticles, final double boxWidth, final double boxHeight) {
+    return new VerletListMethod(new IndexedCellIndexMethod(boxWidth, boxHeight * 1.1, false),
+        maxRadius(initialParticles));
+  }
+
+  private static double maxRadius(final List<Particle> particles) {
+    return particles.stream()
+        .mapToDouble(Particle::radius)
+        .max().orElseThrow(IllegalArgumentException::new);
+  }
 }
@@ -1,21 +1,30 @@
 package ar.edu.itba.ss.simulator;
 
 import ar.edu.itba.ss.io.writer.ParticlesWriter;
-import ar.edu.itba.ss.method.movement.MovementFunction;
-import ar.edu.itba.ss.method.neigbour.CellIndexMethod;
-import ar.edu.itba.ss.model.ImmutableParticle;
+import ar.edu.itba.ss.method.force.BoundaryForce;
+import ar.edu.itba.ss.method.force.LennardJonesForceFunction;
+import ar.edu.itba.ss.method.movement.BatchMovementFunction;
+import ar.edu.itba.ss.method.neigbour.IndexedCellIndexMethod;
+import ar.edu.itba.ss.method.neigbour.IndexedNeighbourFindingMethod;
+import ar.edu.itba.ss.method.neigbour.NeighbourFindingMethodSelector;
+import ar.edu.itba.ss.method.neigbour.NeighbourFindingMethodSelector.Selection;
+import ar.edu.itba.ss.method.neigbour.SpaceFillingCurveReordering;
+import ar.edu.itba.ss.method.neigbour.VerletListMethod;
 import ar.edu.itba.ss.model.Neighbour;
+import ar.edu.itba.ss.model.NeighbourList;
+import ar.edu.itba.ss.model.NeighbourPairs;
 import ar.edu.itba.ss.model.Particle;
+import ar.edu.itba.ss.model.ParticleStore;
+import ar.edu.itba.ss.model.Point2D;
 import ar.edu.itba.ss.model.criteria.Criteria;
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
-import javafx.geometry.Point2D;
 
+// Particles live in a store that is stepped in place, so a step allocates nothing. Particle views
+// are only built for the writer and the end criteria.
 public class LennardJonesGasSimulator implements Simulator {
 
   private final List<Particle> initialParticles;
@@ -24,14 +33,51 @@ public class LennardJonesGasSimulator implements Simulator {
   private final double boxWidth;
   private final double boxHeight;
   private final double middleGap;
-  private final CellIndexMethod cim;
+  private final IndexedNeighbourFindingMethod neighbourFindingMethod;
+  private final SpaceFillingCurveReordering reordering;
   private final double rc;
-  private final Map<Particle, MovementFunction> movementFunctions;
+  private final LennardJonesForceFunction forceFunction;
+  private final BatchMovementFunction movementFunction;
+  private final BoundaryForce walls;
+  private final NeighbourPairs openPairs;
+  private final NeighbourList neighbours;
 
   public LennardJonesGasSimulator(final List<Particle> initialParticles, final double boxWidth,
       final double boxHeight, final double middleGap, final double dt, final int writerIteration,
-      double rc,
-      final Map<Particle, MovementFunction> movementFunctions) {
+      final double rc, final LennardJonesForceFunction forceFunction,
+      final BatchMovementFunction movementFunction) {
+    this(initialParticles, boxWidth, boxHeight, middleGap, dt, writerIteration, rc,
+        forceFunction, movementFunction, false);
+  }
+
+  // With selectNeighbourFindingMethod the candidate methods are timed on the initial particles
+  // and the choice is logged, so the run can be repeated with the same method
+  public LennardJonesGasSimulator(final List<Particle> initialParticles, final double boxWidth,
+      final double boxHeight, final double middleGap, final double dt, final int writerIteration,
+      final double rc, final LennardJonesForceFunction forceFunction,
+      final BatchMovementFunction movementFunction, final boolean selectNeighbourFindingMethod) {
+    this(initialParticles, boxWidth, boxHeight, middleGap, dt, writerIteration, rc,
+        forceFunction, movementFunction, selectNeighbourFindingMethod
+            ? selectNeighbourFindingMethod(initialParticles, boxWidth, boxHeight, dt, rc)
+            : new VerletListMethod(new IndexedCellIndexMethod(boxWidth, boxHeight, false),
+                rc / 10));
+  }
+
+  public LennardJonesGasSimulator(final List<Particle> initialParticles, final double boxWidth,
+      final double boxHeight, final double middleGap, final double dt, final int writerIteration,
+      final double rc, final LennardJonesForceFunction forceFunction,
+      final BatchMovementFunction movementFunction,
+      final IndexedNeighbourFindingMethod neighbourFindingMethod) {
+    this(initialParticles, boxWidth, boxHeight, middleGap, dt, writerIteration, rc,
+        forceFunction, movementFunction, neighbourFindingMethod, null);
+  }
+
+  public LennardJonesGasSimulator(final List<Particle> initialParticles, final double boxWidth,
+      final double boxHeight, final double middleGap, final double dt, final int writerIteration,
+      final double rc, final LennardJonesForceFunction forceFunction,
+      final BatchMovementFunction movementFunction,
+      final IndexedNeighbourFindingMethod neighbourFindingMethod,
+      final SpaceFillingCurveReordering reordering) {
     this.initialParticles = initialParticles;
     this.dt = dt;
     this.writerIteration = writerIteration;
@@ -39,25 +85,45 @@ public class LennardJonesGasSimulator implements Simulator {
     this.boxHeight = boxHeight;
     this.middleGap = middleGap;
     this.rc = rc;
-    this.cim = new CellIndexMethod(boxHeight > boxWidth ? boxHeight : boxWidth, false);
-    this.movementFunctions = movementFunctions;
+    this.neighbourFindingMethod = neighbourFindingMethod;
+    this.reordering = reordering;
+    this.forceFunction = forceFunction;
+    this.movementFunction = movementFunction;
+    this.walls = this::addWallForces;
+    this.openPairs = new NeighbourPairs();
+    this.neighbours = new NeighbourList();
   }
 
   @Override
   public Set<Particle> simulate(Criteria endCriteria, ParticlesWriter writer) {
     double time = 0;
     int iteration = 1;
-    List<Particle> particles = initialParticles;
+    final ParticleStore particles = ParticleStore.of(initialParticles);
 
-    while (!endCriteria.test(time, particles)) {
-      Map<Particle, Set<Neighbour>> neighbours = cim
-          .apply(particles, particles.get(0).radius(), rc);
-      particles = nextParticles(neighbours);
+    while (!endCriteria.test(time, particles.particles())) {
+      if (reordering != null) {
+        final int[] order = reordering.apply(particles);
+
+        if (order != null) {
+          particles.reorder(order);
+          movementFunction.reorder(particles, order);
+        }
+      }
+
+      final NeighbourPairs pairs = neighbourFindingMethod.apply(particles.getX(),
+          particles.getY(), particles.getRadius(), particles.size(), rc);
+
+      // The writer gets the neighbours of the state before the step
+      final Map<Particle, Set<Neighbour>> writtenNeighbours = iteration == writerIteration
+          ? pairs.toMap(particles.particles()) : null;
+
+      updateNeighbours(particles, pairs);
+      movementFunction.move(particles, neighbours, walls, dt);
 
       if (iteration == writerIteration) {
         iteration = 0;
         try {
-          writer.write(time, neighbours);
+          writer.write(time, writtenNeighbours);
         } catch (IOException e) {
           e.printStackTrace();
         }
@@ -67,121 +133,79 @@ public class LennardJonesGasSimulator implements Simulator {
       iteration++;
     }
 
-    return new HashSet<>(particles);
+    return new HashSet<>(particles.particles());
   }
 
-  private List<Particle> nextParticles(Map<Particle, Set<Neighbour>> neighbours) {
-    List<Particle> nextParticles = new ArrayList<>(neighbours.size());
+  private void updateNeighbours(final ParticleStore particles, final NeighbourPairs pairs) {
+    final double[] x = particles.getX();
+    final double[] y = particles.getY();
 
-    for (Map.Entry<Particle, Set<Neighbour>> entry : neighbours.entrySet()) {
-      nextParticles.add(moveParticle(entry.getKey(), entry.getValue()));
-    }
-
-    return nextParticles;
-  }
+    openPairs.clear();
+    for (int pair = 0; pair < pairs.size(); pair++) {
+      final int particle1 = pairs.first(pair);
+      final int particle2 = pairs.second(pair);
 
-  private Particle moveParticle(Particle particle, Set<Neighbour> neighbours) {
-    neighbours = neighbours.stream()
-        .filter(n -> !isWallBetween(particle, n.getNeighbourParticle()))
-        .collect(Collectors.toSet());
-    addWallParticles(particle, neighbours);
+      if (!isWallBetween(x[particle1], y[particle1], x[particle2], y[particle2])) {
+        openPairs.add(particle1, particle2, pairs.distance(pair));
+      }
+    }
 
-    MovementFunction function = movementFunctions.get(particle);
-    return function.move(particle, neighbours, dt);
+    neighbours.update(openPairs, particles.size());
   }
 
-  private void addWallParticles(Particle particle, Set<Neighbour> neighbours) {
-    int wallId = -1;
+  private void addWallForces(final ParticleStore particles, final int slot, final double x,
+      final double y, final double vx, final double vy, final double[] force) {
     final double gapStart = (boxHeight / 2) - (middleGap / 2);
     final double gapEnd = boxHeight - gapStart;
     // up wall
-    double distanceToExtremeWall = boxHeight - particle.position().getY();
-    double distanceToMiddleWall = gapEnd - particle.position().getY();
-    if (particle.position().getX() == boxWidth / 2 && distanceToMiddleWall <= rc
-        && distanceToMiddleWall >= 0) {
+    double distanceToExtremeWall = boxHeight - y;
+    double distanceToMiddleWall = gapEnd - y;
+    if (x == boxWidth / 2 && distanceToMiddleWall <= rc && distanceToMiddleWall >= 0) {
     } else if (distanceToExtremeWall <= rc) {
-      neighbours.add(new Neighbour(ImmutableParticle.builder()
-          .id(wallId--).position(new Point2D(particle.position().getX(), boxHeight))
-          .mass(Double.POSITIVE_INFINITY)
-          .velocity(Point2D.ZERO).build(), distanceToExtremeWall));
+      forceFunction.addPointForce(x, y, x, boxHeight, force);
     }
 
     // down wall
-    distanceToExtremeWall = particle.position().getY();
-    distanceToMiddleWall = particle.position().getY() - gapStart;
-    if (particle.position().getX() == boxWidth / 2 && distanceToMiddleWall <= rc
-        && distanceToMiddleWall >= 0) {
+    distanceToExtremeWall = y;
+    distanceToMiddleWall = y - gapStart;
+    if (x == boxWidth / 2 && distanceToMiddleWall <= rc && distanceToMiddleWall >= 0) {
     } else if (distanceToExtremeWall <= rc) {
-      neighbours.add(new Neighbour(ImmutableParticle.builder()
-          .id(wallId--).position(new Point2D(particle.position().getX(), 0))
-          .mass(Double.POSITIVE_INFINITY)
-          .velocity(Point2D.ZERO).build(), distanceToExtremeWall));
+      forceFunction.addPointForce(x, y, x, 0, force);
     }
 
     // left wall
-    distanceToExtremeWall = particle.position().getX();
+    distanceToExtremeWall = x;
     distanceToMiddleWall = distanceToExtremeWall - boxWidth / 2;
-    if (distanceToMiddleWall > 0 && distanceToMiddleWall <= rc &&
-        (particle.position().getY() <= gapStart || particle.position().getY() >= gapEnd)
-        ) {
-      neighbours.add(new Neighbour(ImmutableParticle.builder()
-          .id(wallId--).position(new Point2D(boxWidth / 2, particle.position().getY()))
-          .mass(Double.POSITIVE_INFINITY)
-          .velocity(Point2D.ZERO).build(), distanceToMiddleWall));
+    if (distanceToMiddleWall > 0 && distanceToMiddleWall <= rc
+        && (y <= gapStart || y >= gapEnd)) {
+      forceFunction.addPointForce(x, y, boxWidth / 2, y, force);
     } else if (distanceToExtremeWall <= rc) {
-      neighbours.add(new Neighbour(ImmutableParticle.builder()
-          .id(wallId--).position(new Point2D(0, particle.position().getY()))
-          .mass(Double.POSITIVE_INFINITY)
-          .velocity(Point2D.ZERO).build(), distanceToExtremeWall));
+      forceFunction.addPointForce(x, y, 0, y, force);
     }
 
     // right wall
-    distanceToExtremeWall = boxWidth - particle.position().getX();
+    distanceToExtremeWall = boxWidth - x;
     distanceToMiddleWall = distanceToExtremeWall - boxWidth / 2;
-    if (distanceToMiddleWall > 0 && distanceToMiddleWall <= rc &&
-        (particle.position().getY() <= gapStart || particle.position().getY() >= gapEnd)
-        ) {
-      neighbours.add(new Neighbour(ImmutableParticle.builder()
-          .id(wallId--).position(new Point2D(boxWidth / 2, particle.position().getY()))
-          .mass(Double.POSITIVE_INFINITY)
-          .velocity(Point2D.ZERO).build(), distanceToMiddleWall));
+    if (distanceToMiddleWall > 0 && distanceToMiddleWall <= rc
+        && (y <= gapStart || y >= gapEnd)) {
+      forceFunction.addPointForce(x, y, boxWidth / 2, y, force);
     } else if (distanceToExtremeWall <= rc) {
-      neighbours.add(new Neighbour(ImmutableParticle.builder()
-          .id(wallId--).position(new Point2D(boxWidth, particle.position().getY()))
-          .mass(Double.POSITIVE_INFINITY)
-          .velocity(Point2D.ZERO).build(), distanceToExtremeWall));
+      forceFunction.addPointForce(x, y, boxWidth, y, force);
     }
 
-    if (particle.position().getY() > gapStart && particle.position().getY() < gapEnd) {
-      final Point2D gapStartPosition = new Point2D(boxWidth / 2, gapStart);
-      final Point2D gapEndPosition = new Point2D(boxWidth / 2, gapEnd);
-      final double gapStartDistance = particle.position().distance(gapStartPosition);
-      final double gapEndDistance = particle.position().distance(gapEndPosition);
-
-      if (gapStartDistance <= rc) {
-        neighbours.add(new Neighbour(ImmutableParticle.builder()
-            .id(wallId--)
-            .position(gapStartPosition)
-            .mass(Double.POSITIVE_INFINITY)
-            .build(), gapStartDistance));
+    if (y > gapStart && y < gapEnd) {
+      if (Point2D.distance(x, y, boxWidth / 2, gapStart) <= rc) {
+        forceFunction.addPointForce(x, y, boxWidth / 2, gapStart, force);
       }
 
-      if (gapEndDistance <= rc) {
-        neighbours.add(new Neighbour(ImmutableParticle.builder()
-            .id(wallId--)
-            .position(gapEndPosition)
-            .mass(Double.POSITIVE_INFINITY)
-            .build(), gapEndDistance));
+      if (Point2D.distance(x, y, boxWidth / 2, gapEnd) <= rc) {
+        forceFunction.addPointForce(x, y, boxWidth / 2, gapEnd, force);
       }
     }
   }
 
-  private boolean isWallBetween(Particle particle1, Particle particle2) {
-    final double x1 = particle1.position().getX();
-    final double x2 = particle2.position().getX();
-    final double y1 = particle1.position().getY();
-    final double y2 = particle2.position().getY();
-
+  private boolean isWallBetween(final double x1, final double y1, final double x2,
+      final double y2) {
     if (x1 == x2) {
       return false;
     }
@@ -198,4 +222,14 @@ public class LennardJonesGasSimulator implements Simulator {
         ((x1 > boxWidth / 2 && x2 < boxWidth / 2) ||
             (x1 < boxWidth / 2 && x2 > boxWidth / 2));
   }
+
+  private static IndexedNeighbourFindingMethod selectNeighbourFindingMethod(
+      final List<Particle> initialParticles, final double boxWidth, final double boxHeight,
+      final double dt, final double rc) {
+    final Selection selection = new NeighbourFindingMethodSelector(boxWidth, boxHeight, false)
+        .selectIndexed(initialParticles, rc, dt);
+    selection.print(System.err);
+
+    return (IndexedNeighbourFindingMethod) selection.getMethod();
+  }
 }
@@ -0,0 +1,121 @@
+package ar.edu.itba.ss.simulator;
+
+import static java.util.Objects.requireNonNull;
+
+import ar.edu.itba.ss.io.writer.ParticlesWriter;
+import ar.edu.itba.ss.method.force.BoundaryForce;
+import ar.edu.itba.ss.method.force.ForceKernel;
+import ar.edu.itba.ss.method.movement.StepIntegrator;
+import ar.edu.itba.ss.method.neigbour.IndexedNeighbourFindingMethod;
+import ar.edu.itba.ss.model.NeighbourPairs;
+import ar.edu.itba.ss.model.Particle;
+import ar.edu.itba.ss.model.ParticleStore;
+import ar.edu.itba.ss.model.criteria.Criteria;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+
+// Every step first moves all particles to their predicted state, then evaluates the forces of all
+// of them against each other in one sweep and finally corrects. Each particle gets one force
+// evaluation per step and all of them see the same state of their neighbours.
+public class TwoPhaseSimulator implements Simulator {
+
+  // Runs after every step, on the corrected state. Particles it moves have to get their
+  // accelerations set and their integrator state cleared.
+  public interface AfterStep {
+
+    AfterStep NONE = (particles, time) -> {
+    };
+
+    void apply(final ParticleStore particles, final double time);
+  }
+
+  private final ParticleStore particles;
+  private final double dt;
+  private final int writerIteration;
+  private final double rc;
+  private final IndexedNeighbourFindingMethod neighbourFindingMethod;
+  private final ForceKernel forceKernel;
+  private final StepIntegrator integrator;
+  private final BoundaryForce boundaries;
+  private final AfterStep afterStep;
+  private final double[] force;
+
+  public TwoPhaseSimulator(final ParticleStore particles, final double dt,
+      final int writerIteration, final double rc,
+      final IndexedNeighbourFindingMethod neighbourFindingMethod, final ForceKernel forceKernel,
+      final StepIntegrator integrator) {
+    this(particles, dt, writerIteration, rc, neighbourFindingMethod, forceKernel, integrator,
+        BoundaryForce.NONE, AfterStep.NONE);
+  }
+
+  public TwoPhaseSimulator(final ParticleStore particles, final double dt,
+      final int writerIteration, final double rc,
+      final IndexedNeighbourFindingMethod neighbourFindingMethod, final ForceKernel forceKernel,
+      final StepIntegrator integrator, final BoundaryForce boundaries,
+      final AfterStep afterStep) {
+    this.particles = particles;
+    this.dt = dt;
+    this.writerIteration = writerIteration;
+    this.rc = rc;
+    this.neighbourFindingMethod = neighbourFindingMethod;
+    this.forceKernel = forceKernel;
+    this.integrator = integrator;
+    this.boundaries = requireNonNull(boundaries);
+    this.afterStep = requireNonNull(afterStep);
+    this.force = new double[2];
+  }
+
+  @Override
+  public Set<Particle> simulate(Criteria endCriteria, ParticlesWriter writer) {
+    double time = 0;
+    int iteration = 1;
+
+    computeAccelerations();
+    integrator.initialize(particles);
+
+    while (!endCriteria.test(time, particles.particles())) {
+      integrator.predict(particles, dt);
+      computeAccelerations();
+      integrator.correct(particles, dt);
+      afterStep.apply(particles, time);
+
+      if (iteration == writerIteration) {
+        iteration = 0;
+        try {
+          writer.write(time, particles);
+        } catch (IOException e) {
+          e.printStackTrace();
+        }
+      }
+
+      time += dt;
+      iteration++;
+    }
+
+    return new HashSet<>(particles.particles());
+  }
+
+  // Neighbours are searched at the predicted positions, the same ones the forces are computed at.
+  // Boundaries are added to the pair forces before they become accelerations.
+  private void computeAccelerations() {
+    final int n = particles.size();
+    final double[] x = particles.getX();
+    final double[] y = particles.getY();
+    final double[] vx = particles.getVx();
+    final double[] vy = particles.getVy();
+    final double[] ax = particles.getAx();
+    final double[] ay = particles.getAy();
+    final double[] mass = particles.getMass();
+    final NeighbourPairs pairs = neighbourFindingMethod.apply(x, y, particles.getRadius(), n, rc);
+    forceKernel.apply(particles, pairs, ax, ay);
+
+    for (int slot = 0; slot < n; slot++) {
+      force[0] = ax[slot];
+      force[1] = ay[slot];
+      boundaries.apply(particles, slot, x[slot], y[slot], vx[slot], vy[slot], force);
+      ax[slot] = force[0] / mass[slot];
+      ay[slot] = force[1] / mass[slot];
+    }
+  }
+}
@@ -0,0 +1,99 @@
+package ar.edu.itba.ss.method.force;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import ar.edu.itba.ss.method.neigbour.IndexedCellIndexMethod;
+import ar.edu.itba.ss.model.ImmutableParticle;
+import ar.edu.itba.ss.model.NeighbourList;
+import ar.edu.itba.ss.model.NeighbourPairs;
+import ar.edu.itba.ss.model.Particle;
+import ar.edu.itba.ss.model.ParticleStore;
+import ar.edu.itba.ss.model.Point2D;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+
+public class ForceKernelTest {
+
+  private static final double DELTA = 1e-9;
+
+  private final ParticleStore contacts = ParticleStore.of(randomParticles(800, 0.01, 5));
+  private final ParticleStore gas = ParticleStore.of(randomParticles(400, 0, 7));
+
+  @Test
+  public void contactKernelMatchesTheForceOfEveryParticle() {
+    assertMatchesIndexedForce(new ContactForceFunction(1e5, 2e5, true), contacts, 0);
+  }
+
+  @Test
+  public void lennardJonesKernelMatchesTheForceOfEveryParticle() {
+    assertMatchesIndexedForce(new LennardJonesForceFunction(2e-6, 0.01), gas, 0.05);
+  }
+
+  // Each pair adds equal and opposite forces, so without gravity they cancel out
+  @Test
+  public void pairForcesCancelOut() {
+    final NeighbourPairs pairs = pairs(contacts, 0);
+    final double[] forceX = new double[contacts.size()];
+    final double[] forceY = new double[contacts.size()];
+    new ContactForceFunction(1e5, 2e5, false).apply(contacts, pairs, forceX, forceY);
+
+    double totalX = 0;
+    double totalY = 0;
+    double magnitude = 0;
+    for (int slot = 0; slot < contacts.size(); slot++) {
+      totalX += forceX[slot];
+      totalY += forceY[slot];
+      magnitude += Point2D.magnitude(forceX[slot], forceY[slot]);
+    }
+
+    assertTrue(pairs.size() > 0);
+    assertEquals(0, totalX, magnitude * 1e-12);
+    assertEquals(0, totalY, magnitude * 1e-12);
+  }
+
+  private static <T extends IndexedForceFunction & ForceKernel> void assertMatchesIndexedForce(
+      final T forceFunction, final ParticleStore particles, final double rc) {
+    final NeighbourPairs pairs = pairs(particles, rc);
+    final NeighbourList neighbours = NeighbourList.fromPairs(pairs, particles.size());
+    final double[] forceX = new double[particles.size()];
+    final double[] forceY = new double[particles.size()];
+    final double[] force = new double[2];
+
+    forceFunction.apply(particles, pairs, forceX, forceY);
+
+    assertTrue(pairs.size() > 0);
+    for (int slot = 0; slot < particles.size(); slot++) {
+      forceFunction.apply(particles, neighbours, slot, particles.getX()[slot],
+          particles.getY()[slot], particles.getVx()[slot], particles.getVy()[slot], force);
+      final double scale = Math.max(1, Point2D.magnitude(force[0], force[1]));
+
+      assertEquals(force[0], forceX[slot], DELTA * scale);
+      assertEquals(force[1], forceY[slot], DELTA * scale);
+    }
+  }
+
+  private static NeighbourPairs pairs(final ParticleStore particles, final double rc) {
+    return new IndexedCellIndexMethod(1, 1, false).apply(particles.getX(), particles.getY(),
+        particles.getRadius(), particles.size(), rc);
+  }
+
+  private static List<Particle> randomParticles(final int n, final double radius,
+      final long seed) {
+    final Random random = new Random(seed);
+    final List<Particle> particles = new ArrayList<>(n);
+
+    for (int id = 1; id <= n; id++) {
+      particles.add(ImmutableParticle.builder()
+          .id(id)
+          .radius(radius)
+          .position(new Point2D(random.nextDouble(), random.nextDouble()))
+          .velocity(new Point2D(random.nextDouble() - 0.5, random.nextDouble() - 0.5))
+          .build());
+    }
+
+    return particles;
+  }
+}
@@ -0,0 +1,194 @@
+package ar.edu.itba.ss.method.movement;
+
+import static org.junit.Assert.assertEquals;
+
+import ar.edu.itba.ss.method.force.BoundaryForce;
+import ar.edu.itba.ss.method.force.ContactForceFunction;
+import ar.edu.itba.ss.method.neigbour.IndexedCellIndexMethod;
+import ar.edu.itba.ss.model.ImmutableParticle;
+import ar.edu.itba.ss.model.Neighbour;
+import ar.edu.itba.ss.model.NeighbourList;
+import ar.edu.itba.ss.model.Particle;
+import ar.edu.itba.ss.model.ParticleStore;
+import ar.edu.itba.ss.model.Point2D;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Function;
+import org.junit.Test;
+
+public class BatchMovementFunctionTest {
+
+  private static final double DT = 1e-5;
+  private static final int STEPS = 50;
+  private static final double DELTA = 1e-12;
+
+  private final ContactForceFunction forceFunction = new ContactForceFunction(1e5, 2e5, true);
+  private final List<Particle> particles = randomParticles(800, 5);
+
+  @Test
+  public void eulerMatchesPerParticleEuler() {
+    assertSameTrajectories(new BatchEulerMovementFunction(forceFunction),
+        particle -> new EulerMovementFunction(forceFunction));
+  }
+
+  @Test
+  public void verletMatchesPerParticleVerlet() {
+    assertSameTrajectories(new BatchVerletMovementFunction(forceFunction),
+        particle -> new VerletMovementFunction(forceFunction, particle.position()));
+  }
+
+  @Test
+  public void beemanMatchesPerParticleBeeman() {
+    assertSameTrajectories(new BatchBeemanMovementFunction(forceFunction),
+        particle -> new BeemanMovementFunction(forceFunction, Point2D.ZERO));
+  }
+
+  @Test
+  public void velocityDependentBeemanMatchesPerParticleVersion() {
+    assertSameTrajectories(new BatchBeemanMovementFunction(forceFunction, true),
+        particle -> new VDBeemanMovementFunction(forceFunction, Point2D.ZERO));
+  }
+
+  @Test
+  public void gearMatchesPerParticleGear() {
+    assertSameTrajectories(
+        new BatchGearMovementFunction(forceFunction, GearMovementFunction.GEAR_5_VD_ALPHAS),
+        particle -> {
+          final MovementFunction gear = new GearMovementFunction(forceFunction,
+              GearMovementFunction.GEAR_5_VD_ALPHAS, new Point2D[6]);
+          gear.clearState(particle);
+          return gear;
+        });
+  }
+
+  @Test
+  public void boundariesAreAddedToEveryForceEvaluation() {
+    final ParticleStore expected = ParticleStore.of(particles);
+    final ParticleStore actual = ParticleStore.of(particles);
+    final BatchMovementFunction withGravity = new BatchBeemanMovementFunction(forceFunction);
+    final BatchMovementFunction withBoundary = new BatchBeemanMovementFunction(
+        new ContactForceFunction(1e5, 2e5, false));
+    final BoundaryForce gravity = (store, slot, x, y, vx, vy, force) ->
+        force[1] -= 9.80665 * store.getMass()[slot];
+
+    for (int step = 0; step < STEPS; step++) {
+      withGravity.move(expected, neighbours(expected), DT);
+      withBoundary.move(actual, neighbours(actual), gravity, DT);
+    }
+
+    assertSameParticles(expected, actual);
+  }
+
+  @Test
+  public void reorderKeepsTheHistoryOfEveryParticle() {
+    final ParticleStore expected = ParticleStore.of(particles);
+    final ParticleStore actual = ParticleStore.of(particles);
+    final BatchMovementFunction unordered = new BatchGearMovementFunction(forceFunction,
+        GearMovementFunction.GEAR_5_VD_ALPHAS);
+    final BatchMovementFunction reordered = new BatchGearMovementFunction(forceFunction,
+        GearMovementFunction.GEAR_5_VD_ALPHAS);
+
+    for (int step = 0; step < STEPS; step++) {
+      if (step == STEPS / 2) {
+        final int[] order = shuffledSlots(actual.size(), 7);
+        actual.reorder(order);
+        reordered.reorder(actual, order);
+      }
+
+      unordered.move(expected, neighbours(expected), DT);
+      reordered.move(actual, neighbours(actual), DT);
+    }
+
+    assertSameParticles(expected, actual);
+  }
+
+  private void assertSameTrajectories(final AbstractBatchMovementFunction batch,
+      final Function<Particle, MovementFunction> perParticle) {
+    final ParticleStore store = ParticleStore.of(particles);
+    batch.clearState(store);
+
+    final Map<Particle, MovementFunction> movementFunctions = new HashMap<>();
+    for (final Particle particle : particles) {
+      movementFunctions.put(particle, perParticle.apply(particle));
+    }
+
+    final IndexedCellIndexMethod neighbourFindingMethod = new IndexedCellIndexMethod(1, 1, false);
+    List<Particle> current = particles;
+
+    for (int step = 0; step < STEPS; step++) {
+      final Map<Particle, Set<Neighbour>> neighbours = neighbourFindingMethod.apply(current, 0);
+      final List<Particle> next = new ArrayList<>(current.size());
+      for (final Particle particle : current) {
+        next.add(movementFunctions.get(particle).move(particle, neighbours.get(particle), DT));
+      }
+      current = next;
+
+      batch.move(store, NeighbourList.fromPairs(neighbourFindingMethod.apply(store.getX(),
+          store.getY(), store.getRadius(), store.size(), 0), store.size()), DT);
+    }
+
+    assertSameParticles(ParticleStore.of(current), store);
+  }
+
+  private static NeighbourList neighbours(final ParticleStore store) {
+    return NeighbourList.fromPairs(new IndexedCellIndexMethod(1, 1, false).apply(store.getX(),
+        store.getY(), store.getRadius(), store.size(), 0), store.size());
+  }
+
+  // Compares the particles by id, whichever slot they are in
+  private static void assertSameParticles(final ParticleStore expected,
+      final ParticleStore actual) {
+    final Map<Integer, Integer> slots = new HashMap<>();
+    for (int slot = 0; slot < actual.size(); slot++) {
+      slots.put(actual.id(slot), slot);
+    }
+
+    assertEquals(expected.size(), actual.size());
+    for (int slot = 0; slot < expected.size(); slot++) {
+      final int other = slots.get(expected.id(slot));
+
+      assertEquals(expected.getX()[slot], actual.getX()[other], DELTA);
+      assertEquals(expected.getY()[slot], actual.getY()[other], DELTA);
+      assertEquals(expected.getVx()[slot], actual.getVx()[other], DELTA);
+      assertEquals(expected.getVy()[slot], actual.getVy()[other], DELTA);
+    }
+  }
+
+  private static int[] shuffledSlots(final int n, final long seed) {
+    final Random random = new Random(seed);
+    final int[] slots = new int[n];
+
+    for (int slot = 0; slot < n; slot++) {
+      slots[slot] = slot;
+    }
+    for (int slot = n - 1; slot > 0; slot--) {
+      final int other = random.nextInt(slot + 1);
+      final int swapped = slots[slot];
+      slots[slot] = slots[other];
+      slots[other] = swapped;
+    }
+
+    return slots;
+  }
+
+  // Dense enough for many particles to be in contact with another one
+  private static List<Particle> randomParticles(final int n, final long seed) {
+    final Random random = new Random(seed);
+    final List<Particle> particles = new ArrayList<>(n);
+
+    for (int id = 1; id <= n; id++) {
+      particles.add(ImmutableParticle.builder()
+          .id(id)
+          .radius(0.01 + random.nextDouble() * 0.005)
+          .position(new Point2D(random.nextDouble(), random.nextDouble()))
+          .velocity(new Point2D(random.nextDouble() - 0.5, random.nextDouble() - 0.5))
+          .build());
+    }
+
+    return particles;
+  }
+}
@@ -0,0 +1,84 @@
+package ar.edu.itba.ss.method.movement;
+
+import static org.junit.Assert.assertEquals;
+
+import ar.edu.itba.ss.method.force.ContactForceFunction;
+import ar.edu.itba.ss.method.neigbour.KdTreeMethod;
+import ar.edu.itba.ss.model.ImmutableParticle;
+import ar.edu.itba.ss.model.ParticleStore;
+import ar.edu.itba.ss.model.Physics;
+import ar.edu.itba.ss.model.Point2D;
+import ar.edu.itba.ss.model.criteria.TimeCriteria;
+import ar.edu.itba.ss.simulator.TwoPhaseSimulator;
+import java.util.Collections;
+import org.junit.Test;
+
+public class StepIntegratorTest {
+
+  private static final double DT = 1e-3;
+  private static final double TIME = 1;
+  private static final double DELTA = 1e-9;
+
+  // Constant acceleration is integrated exactly by every second order scheme
+  @Test
+  public void velocityVerletIsExactInFreeFall() {
+    assertFreeFall(new VelocityVerletStepIntegrator());
+  }
+
+  @Test
+  public void beemanIsExactInFreeFall() {
+    assertFreeFall(new BeemanStepIntegrator());
+  }
+
+  @Test
+  public void gearIsExactInFreeFall() {
+    assertFreeFall(new GearStepIntegrator(GearMovementFunction.GEAR_5_ALPHAS));
+  }
+
+  @Test
+  public void boundariesActBeforeTheCorrection() {
+    final ParticleStore store = ParticleStore.of(Collections.singletonList(
+        ImmutableParticle.builder()
+            .id(1)
+            .radius(0.01)
+            .position(new Point2D(1, 2))
+            .velocity(new Point2D(0.5, 3))
+            .build()));
+    final int[] steps = {0};
+
+    // A field that cancels gravity leaves the particle moving straight
+    new TwoPhaseSimulator(store, DT, Integer.MAX_VALUE, 0, new KdTreeMethod(),
+        new ContactForceFunction(1e5, 2e5, true), new BeemanStepIntegrator(),
+        (particles, slot, x, y, vx, vy, force) ->
+            force[1] += Physics.GRAVITY * particles.getMass()[slot],
+        (particles, time) -> steps[0]++)
+        .simulate(new TimeCriteria(TIME - DT / 2), (time, particles) -> {
+        });
+
+    assertEquals(Math.round(TIME / DT), steps[0]);
+    assertEquals(1 + 0.5 * TIME, store.getX()[0], DELTA);
+    assertEquals(2 + 3 * TIME, store.getY()[0], DELTA);
+    assertEquals(3, store.getVy()[0], DELTA);
+  }
+
+  private static void assertFreeFall(final StepIntegrator integrator) {
+    final ParticleStore store = ParticleStore.of(Collections.singletonList(
+        ImmutableParticle.builder()
+            .id(1)
+            .radius(0.01)
+            .position(new Point2D(1, 2))
+            .velocity(new Point2D(0.5, 3))
+            .build()));
+
+    new TwoPhaseSimulator(store, DT, Integer.MAX_VALUE, 0, new KdTreeMethod(),
+        new ContactForceFunction(1e5, 2e5, true), integrator)
+        .simulate(new TimeCriteria(TIME - DT / 2), (time, particles) -> {
+        });
+
+    // The last step starts at the time just under the limit, so TIME is reached
+    assertEquals(1 + 0.5 * TIME, store.getX()[0], DELTA);
+    assertEquals(2 + 3 * TIME - Physics.GRAVITY * TIME * TIME / 2, store.getY()[0], DELTA);
+    assertEquals(0.5, store.getVx()[0], DELTA);
+    assertEquals(3 - Physics.GRAVITY * TIME, store.getVy()[0], DELTA);
+  }
+}
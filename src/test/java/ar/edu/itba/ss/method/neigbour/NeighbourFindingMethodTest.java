@@ -0,0 +1,365 @@
+package ar.edu.itba.ss.method.neigbour;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import ar.edu.itba.ss.model.ImmutableParticle;
+import ar.edu.itba.ss.model.Neighbour;
+import ar.edu.itba.ss.model.NeighbourList;
+import ar.edu.itba.ss.model.Particle;
+import ar.edu.itba.ss.model.Point2D;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import org.junit.Test;
+
+public class NeighbourFindingMethodTest {
+
+  private static final double L = 1;
+  private static final double RC = 0.02;
+  private static final double DELTA = 1e-9;
+  // Periodic images get ids shifted by this, so they can be mapped back to the particle
+  private static final int IMAGE_IDS = 100000;
+  private static final double ORIGIN_X = -0.3;
+  private static final double ORIGIN_Y = 0.2;
+  private static final double WIDTH = 1.5;
+  private static final double HEIGHT = 0.6;
+
+  private final List<Particle> particles = randomParticles(400, 0.005, 0.01, 7);
+  private final List<Particle> rectangular = randomParticles(400, 0.005, 0.01, ORIGIN_X,
+      ORIGIN_Y, WIDTH, HEIGHT, 13);
+  private final List<Particle> polydisperse = randomParticles(400, 0.001, 0.03, 11);
+
+  @Test
+  public void indexedCellIndexMethodMatchesBruteForce() {
+    for (final boolean periodic : new boolean[]{false, true}) {
+      final Map<Particle, Set<Neighbour>> expected = bruteForce(particles, periodic);
+      final IndexedCellIndexMethod method = new IndexedCellIndexMethod(L, periodic);
+
+      assertSameNeighbours(expected, method.apply(particles, RC));
+      // Buffers are reused between calls
+      assertSameNeighbours(expected, method.apply(particles, RC));
+    }
+  }
+
+  @Test
+  public void threadedIndexedCellIndexMethodMatchesBruteForce() {
+    for (final boolean periodic : new boolean[]{false, true}) {
+      final Map<Particle, Set<Neighbour>> expected = bruteForce(particles, periodic);
+      final IndexedCellIndexMethod method = new IndexedCellIndexMethod(0, 0, L, L, periodic, 2);
+
+      try {
+        assertSameNeighbours(expected, method.apply(particles, RC));
+        assertSameNeighbours(expected, method.apply(particles, RC));
+      } finally {
+        method.shutdown();
+      }
+    }
+  }
+
+  @Test
+  public void cellIndexMethodsMatchBruteForceInRectangularBoxes() {
+    for (final boolean periodic : new boolean[]{false, true}) {
+      final Map<Particle, Set<Neighbour>> expected = bruteForce(rectangular, periodic, WIDTH,
+          HEIGHT);
+
+      assertSameNeighbours(expected,
+          new CellIndexMethod(ORIGIN_X, ORIGIN_Y, WIDTH, HEIGHT, periodic)
+              .apply(rectangular, RC));
+      assertSameNeighbours(expected,
+          new IndexedCellIndexMethod(ORIGIN_X, ORIGIN_Y, WIDTH, HEIGHT, periodic)
+              .apply(rectangular, RC));
+    }
+  }
+
+  @Test
+  public void incrementalCellIndexMethodMatchesBruteForceWhileParticlesMove() {
+    for (final boolean periodic : new boolean[]{false, true}) {
+      final IncrementalCellIndexMethod method = new IncrementalCellIndexMethod(L, L, periodic);
+      List<Particle> current = particles;
+
+      for (int step = 0; step < 5; step++) {
+        assertSameNeighbours(bruteForce(current, periodic), method.apply(current, RC));
+        current = drift(current, 0.01, periodic);
+      }
+
+      final List<Particle> reversed = new ArrayList<>(current);
+      Collections.reverse(reversed);
+      assertSameNeighbours(bruteForce(reversed, periodic), method.apply(reversed, RC));
+    }
+  }
+
+  @Test
+  public void verletListMethodMatchesBruteForceWhileParticlesMove() {
+    for (final NeighbourFindingMethod buildMethod : new NeighbourFindingMethod[]{
+        new CellIndexMethod(L, false), new IndexedCellIndexMethod(L, false)}) {
+      final VerletListMethod method = new VerletListMethod(buildMethod, 0.01);
+      List<Particle> current = particles;
+
+      for (int step = 0; step < 6; step++) {
+        assertSameNeighbours(bruteForce(current, false), method.apply(current, RC));
+        current = drift(current, 0.004, false);
+      }
+      assertTrue(method.getRebuilds() < 6);
+
+      // Slots are list positions, so reordering the particles has to rebuild the list
+      final List<Particle> reversed = new ArrayList<>(current);
+      Collections.reverse(reversed);
+      assertSameNeighbours(bruteForce(reversed, false), method.apply(reversed, RC));
+    }
+  }
+
+  @Test
+  public void compressedNeighboursMatchBruteForce() {
+    final Map<Particle, Set<Neighbour>> expected = bruteForce(particles, false);
+    final NeighbourList indexed = new IndexedCellIndexMethod(L, false)
+        .applyCompressed(particles, RC);
+    final NeighbourList converted = new CellIndexMethod(L, false).applyCompressed(particles, RC);
+
+    assertSameNeighbours(expected, indexed.toMap(particles));
+    assertSameNeighbours(expected, converted.toMap(particles));
+
+    // Every pair is kept from both sides
+    final int entries = distances(expected).values().stream().mapToInt(Map::size).sum();
+    assertEquals(particles.size(), indexed.particles());
+    assertEquals(entries, indexed.size());
+    assertEquals(entries, converted.size());
+  }
+
+  @Test
+  public void multiLevelCellIndexMethodMatchesBruteForceWithMixedRadii() {
+    final Map<Particle, Set<Neighbour>> expected = bruteForce(polydisperse, false);
+    final MultiLevelCellIndexMethod method = new MultiLevelCellIndexMethod(L, L);
+
+    assertSameNeighbours(expected, method.apply(polydisperse, RC));
+    assertSameNeighbours(expected, method.applyCompressed(polydisperse, RC)
+        .toMap(polydisperse));
+  }
+
+  @Test
+  public void kdTreeMethodMatchesBruteForce() {
+    assertSameNeighbours(bruteForce(particles, false), new KdTreeMethod().apply(particles, RC));
+    assertSameNeighbours(bruteForce(polydisperse, false), new KdTreeMethod()
+        .apply(polydisperse, RC));
+    // The tree is refitted between rebuilds
+    assertMatchesBruteForceWhileParticlesMove(new KdTreeMethod(8, 3));
+  }
+
+  @Test
+  public void sweepAndPruneMethodMatchesBruteForce() {
+    assertSameNeighbours(bruteForce(polydisperse, false), new SweepAndPruneMethod()
+        .apply(polydisperse, RC));
+    // The sort order of the previous call is reused
+    assertMatchesBruteForceWhileParticlesMove(new SweepAndPruneMethod());
+  }
+
+  @Test
+  public void selectedMethodMatchesBruteForce() {
+    final NeighbourFindingMethodSelector.Selection selection =
+        new NeighbourFindingMethodSelector(L, L, false).select(particles, RC, 0.001);
+
+    assertNotNull(selection.getMethod());
+    assertTrue(selection.getTimings().containsKey(selection.getName()));
+    assertSameNeighbours(bruteForce(particles, false),
+        selection.getMethod().apply(particles, RC));
+
+    final ByteArrayOutputStream log = new ByteArrayOutputStream();
+    selection.print(new PrintStream(log));
+    for (final String name : selection.getTimings().keySet()) {
+      assertTrue(log.toString().contains(name + ": "));
+    }
+    assertTrue(log.toString().contains("Selected " + selection.getName()));
+  }
+
+  @Test
+  public void subdividedCellsMatchBruteForce() {
+    for (final boolean periodic : new boolean[]{false, true}) {
+      final Map<Particle, Set<Neighbour>> expected = bruteForce(particles, periodic);
+
+      for (int subdivisions = 2; subdivisions <= 3; subdivisions++) {
+        assertSameNeighbours(expected, new CellIndexMethod(0, 0, L, L, periodic, subdivisions)
+            .apply(particles, RC));
+        assertSameNeighbours(expected,
+            new IndexedCellIndexMethod(0, 0, L, L, periodic, 1, subdivisions)
+                .apply(particles, RC));
+      }
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void subdivisionsHaveToBePositive() {
+    new CellIndexMethod(0, 0, L, L, false, 0);
+  }
+
+  @Test
+  public void cellIndexMethodMatchesBruteForceInPeriodicBoxes() {
+    assertSameNeighbours(bruteForce(particles, true), new CellIndexMethod(L, true)
+        .apply(particles, RC));
+    assertSameNeighbours(bruteForce(polydisperse, true), new CellIndexMethod(L, true)
+        .apply(polydisperse, RC));
+    assertSameNeighbours(bruteForce(rectangular, true, WIDTH, HEIGHT),
+        new CellIndexMethod(ORIGIN_X, ORIGIN_Y, WIDTH, HEIGHT, true).apply(rectangular, RC));
+    // A cutoff close to half the box leaves only two cells per side
+    final List<Particle> few = particles.subList(0, 50);
+    assertSameNeighbours(bruteForce(few, true, L, L, 0.45), new CellIndexMethod(L, true)
+        .apply(few, 0.45));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void periodicCutoffHasToFitInTheBox() {
+    new CellIndexMethod(L, true).apply(particles, 0.6 * L);
+  }
+
+  @Test
+  public void spatialHashMethodMatchesBruteForce() {
+    for (final List<Particle> current : Arrays.asList(particles, polydisperse, rectangular)) {
+      final Map<Particle, Set<Neighbour>> expected = bruteForce(current, false);
+
+      for (int subdivisions = 1; subdivisions <= 2; subdivisions++) {
+        final SpatialHashMethod method = new SpatialHashMethod(subdivisions);
+
+        assertSameNeighbours(expected, method.apply(current, RC));
+        assertSameNeighbours(expected, method.applyCompressed(current, RC).toMap(current));
+      }
+    }
+  }
+
+  private static List<Particle> randomParticles(final int n, final double minRadius,
+      final double maxRadius, final long seed) {
+    return randomParticles(n, minRadius, maxRadius, 0, 0, L, L, seed);
+  }
+
+  private static List<Particle> randomParticles(final int n, final double minRadius,
+      final double maxRadius, final double originX, final double originY, final double width,
+      final double height, final long seed) {
+    final Random random = new Random(seed);
+    final List<Particle> particles = new ArrayList<>(n);
+
+    for (int id = 1; id <= n; id++) {
+      particles.add(ImmutableParticle.builder()
+          .id(id)
+          .radius(minRadius + random.nextDouble() * (maxRadius - minRadius))
+          .position(new Point2D(originX + random.nextDouble() * width,
+              originY + random.nextDouble() * height))
+          .velocity(new Point2D(random.nextDouble() - 0.5, random.nextDouble() - 0.5))
+          .build());
+    }
+
+    return particles;
+  }
+
+  private static List<Particle> drift(final List<Particle> particles, final double dt,
+      final boolean periodic) {
+    final List<Particle> next = new ArrayList<>(particles.size());
+
+    for (final Particle particle : particles) {
+      double x = particle.position().getX() + particle.velocity().getX() * dt;
+      double y = particle.position().getY() + particle.velocity().getY() * dt;
+      if (periodic) {
+        x -= Math.floor(x / L) * L;
+        y -= Math.floor(y / L) * L;
+      }
+
+      next.add(ImmutableParticle.builder().from(particle).position(new Point2D(x, y)).build());
+    }
+
+    return next;
+  }
+
+  private void assertMatchesBruteForceWhileParticlesMove(final NeighbourFindingMethod method) {
+    List<Particle> current = particles;
+
+    for (int step = 0; step < 6; step++) {
+      assertSameNeighbours(bruteForce(current, false), method.apply(current, RC));
+      current = drift(current, 0.004, false);
+    }
+  }
+
+  // In a periodic box the brute force search runs over the particles and their eight images,
+  // keeping the neighbours of the original copies
+  private static Map<Particle, Set<Neighbour>> bruteForce(final List<Particle> particles,
+      final boolean periodic) {
+    return bruteForce(particles, periodic, L, L);
+  }
+
+  private static Map<Particle, Set<Neighbour>> bruteForce(final List<Particle> particles,
+      final boolean periodic, final double width, final double height) {
+    return bruteForce(particles, periodic, width, height, RC);
+  }
+
+  private static Map<Particle, Set<Neighbour>> bruteForce(final List<Particle> particles,
+      final boolean periodic, final double width, final double height, final double rc) {
+    if (!periodic) {
+      return new BruteForceMethod().apply(particles, rc);
+    }
+
+    final List<Particle> images = new ArrayList<>(particles);
+    int image = 1;
+    for (int shiftX = -1; shiftX <= 1; shiftX++) {
+      for (int shiftY = -1; shiftY <= 1; shiftY++) {
+        if (shiftX == 0 && shiftY == 0) {
+          continue;
+        }
+
+        for (final Particle particle : particles) {
+          images.add(ImmutableParticle.builder().from(particle)
+              .id(particle.id() + image * IMAGE_IDS)
+              .position(particle.position().add(shiftX * width, shiftY * height))
+              .build());
+        }
+        image++;
+      }
+    }
+
+    final Map<Particle, Set<Neighbour>> all = new BruteForceMethod().apply(images, rc);
+    final Map<Particle, Set<Neighbour>> neighbours = new HashMap<>();
+    for (final Particle particle : particles) {
+      neighbours.put(particle, all.get(particle));
+    }
+
+    return neighbours;
+  }
+
+  private static void assertSameNeighbours(final Map<Particle, Set<Neighbour>> expected,
+      final Map<Particle, Set<Neighbour>> actual) {
+    final Map<Integer, Map<Integer, Double>> expectedDistances = distances(expected);
+    final Map<Integer, Map<Integer, Double>> actualDistances = distances(actual);
+
+    assertEquals(expectedDistances.keySet(), actualDistances.keySet());
+    for (final Map.Entry<Integer, Map<Integer, Double>> entry : expectedDistances.entrySet()) {
+      final Map<Integer, Double> actualNeighbours = actualDistances.get(entry.getKey());
+
+      assertEquals("Neighbours of " + entry.getKey(), entry.getValue().keySet(),
+          actualNeighbours.keySet());
+      for (final Map.Entry<Integer, Double> neighbour : entry.getValue().entrySet()) {
+        assertEquals(neighbour.getValue(), actualNeighbours.get(neighbour.getKey()), DELTA);
+      }
+    }
+  }
+
+  private static Map<Integer, Map<Integer, Double>> distances(
+      final Map<Particle, Set<Neighbour>> neighbours) {
+    final Map<Integer, Map<Integer, Double>> distances = new HashMap<>();
+
+    for (final Map.Entry<Particle, Set<Neighbour>> entry : neighbours.entrySet()) {
+      final Map<Integer, Double> particleDistances = new HashMap<>();
+
+      for (final Neighbour neighbour : entry.getValue()) {
+        particleDistances.put(neighbour.getNeighbourParticle().id() % IMAGE_IDS,
+            neighbour.getDistance());
+      }
+
+      distances.put(entry.getKey().id(), particleDistances);
+    }
+
+    return distances;
+  }
+}
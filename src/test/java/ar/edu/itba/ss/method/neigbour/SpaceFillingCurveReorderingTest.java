@@ -0,0 +1,113 @@
+package ar.edu.itba.ss.method.neigbour;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import ar.edu.itba.ss.method.neigbour.SpaceFillingCurveReordering.Curve;
+import ar.edu.itba.ss.model.ImmutableParticle;
+import ar.edu.itba.ss.model.Particle;
+import ar.edu.itba.ss.model.Point2D;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+
+public class SpaceFillingCurveReorderingTest {
+
+  private static final double L = 1;
+  private static final int SIDE = 16;
+
+  private final List<Particle> particles = randomParticles(500, 3);
+
+  @Test
+  public void mortonIndexInterleavesTheCoordinateBits() {
+    assertEquals(0, SpaceFillingCurveReordering.mortonIndex(0, 0));
+    assertEquals(1, SpaceFillingCurveReordering.mortonIndex(1, 0));
+    assertEquals(2, SpaceFillingCurveReordering.mortonIndex(0, 1));
+    assertEquals(3, SpaceFillingCurveReordering.mortonIndex(1, 1));
+    assertEquals(4, SpaceFillingCurveReordering.mortonIndex(2, 0));
+    assertEquals(0xF, SpaceFillingCurveReordering.mortonIndex(3, 3));
+  }
+
+  @Test
+  public void hilbertCurveOnlyStepsToAdjacentCells() {
+    // The first SIDE * SIDE indices cover the SIDE x SIDE block at the origin
+    final int[][] cells = new int[SIDE * SIDE][];
+    for (int x = 0; x < SIDE; x++) {
+      for (int y = 0; y < SIDE; y++) {
+        final long index = SpaceFillingCurveReordering.hilbertIndex(x, y);
+
+        assertTrue(index < cells.length);
+        assertNull(cells[(int) index]);
+        cells[(int) index] = new int[]{x, y};
+      }
+    }
+
+    for (int index = 1; index < cells.length; index++) {
+      assertEquals(1, Math.abs(cells[index][0] - cells[index - 1][0])
+          + Math.abs(cells[index][1] - cells[index - 1][1]));
+    }
+  }
+
+  @Test
+  public void sortKeepsEveryParticleInCurveOrder() {
+    for (final Curve curve : Curve.values()) {
+      final List<Particle> sorted = new SpaceFillingCurveReordering(L, L, curve, 1)
+          .sort(particles);
+
+      assertEquals(particles.size(), sorted.size());
+      assertEquals(new HashSet<>(particles), new HashSet<>(sorted));
+
+      long previous = -1;
+      for (final Particle particle : sorted) {
+        final long index = curveIndex(particle, curve);
+        assertTrue(index >= previous);
+        previous = index;
+      }
+    }
+  }
+
+  @Test
+  public void applyOnlySortsEveryInterval() {
+    final SpaceFillingCurveReordering reordering = new SpaceFillingCurveReordering(L, L,
+        Curve.HILBERT, 3);
+
+    for (int call = 0; call < 7; call++) {
+      final boolean sorted = reordering.apply(particles) != particles;
+      assertEquals("Call " + call, call % 3 == 0, sorted);
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void intervalHasToBePositive() {
+    new SpaceFillingCurveReordering(L, L, Curve.MORTON, 0);
+  }
+
+  private static long curveIndex(final Particle particle, final Curve curve) {
+    final int side = 1 << 16;
+    final int x = Math.min(side - 1, (int) (particle.position().getX() / L * side));
+    final int y = Math.min(side - 1, (int) (particle.position().getY() / L * side));
+
+    return curve == Curve.MORTON ? SpaceFillingCurveReordering.mortonIndex(x, y)
+        : SpaceFillingCurveReordering.hilbertIndex(x, y);
+  }
+
+  private static List<Particle> randomParticles(final int n, final long seed) {
+    final Random random = new Random(seed);
+    final List<Particle> particles = new ArrayList<>(n);
+
+    for (int id = 1; id <= n; id++) {
+      particles.add(ImmutableParticle.builder()
+          .id(id)
+          .radius(0.001)
+          .mass(1)
+          .position(new Point2D(random.nextDouble() * L, random.nextDouble() * L))
+          .velocity(Point2D.ZERO)
+          .build());
+    }
+
+    return particles;
+  }
+}
@@ -0,0 +1,91 @@
+package ar.edu.itba.ss.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.List;
+import org.junit.Test;
+
+public class CollisionTest {
+
+  private static final double DELTA = 1e-12;
+
+  private final Particle left = particle(1, 0, 0, 1, 0, 0.1, 1);
+  private final Particle right = particle(2, 1, 0, -1, 0, 0.1, 3);
+
+  @Test
+  public void approachingParticlesCollideWhenTheyTouch() {
+    assertEquals(0.4, Collision.particleCollisionTime(0, 0, 1, 0, 0.1, 1, 0, -1, 0, 0.1),
+        DELTA);
+    assertEquals(Collision.particleCollisionTime(0, 0, 1, 0, 0.1, 1, 0, -1, 0, 0.1),
+        Collision.withParticle(left, right).get().getElapsedTime(), DELTA);
+  }
+
+  @Test
+  public void particlesThatMoveApartOrMissNeverCollide() {
+    assertEquals(Double.POSITIVE_INFINITY,
+        Collision.particleCollisionTime(0, 0, -1, 0, 0.1, 1, 0, 1, 0, 0.1), 0);
+    assertEquals(Double.POSITIVE_INFINITY,
+        Collision.particleCollisionTime(0, 0, 1, 0, 0.1, 1, 1, -1, 0, 0.1), 0);
+    assertFalse(Collision.withParticle(particle(1, 0, 0, 1, 0, 0.1, 1),
+        particle(2, 1, 1, -1, 0, 0.1, 1)).isPresent());
+  }
+
+  @Test
+  public void particleCollisionConservesMomentumAndEnergy() {
+    final List<Particle> after = Collision.withParticle(left, right).get()
+        .getParticlesAfterCollision();
+
+    assertEquals(momentumX(left, right), momentumX(after.get(0), after.get(1)), DELTA);
+    assertEquals(energy(left, right), energy(after.get(0), after.get(1)), DELTA);
+    assertEquals(0.2, after.get(1).position().distance(after.get(0).position()), DELTA);
+  }
+
+  @Test
+  public void particlesHitTheWallWhenTheirBorderTouchesIt() {
+    assertEquals(0.9, Collision.wallCollisionTime(0, 0, 1, 0, 0.1, 1, -1, 1, 1), DELTA);
+    assertEquals(Double.POSITIVE_INFINITY,
+        Collision.wallCollisionTime(0, 0, -1, 0, 0.1, 1, -1, 1, 1), 0);
+
+    final Particle bounced = Collision.withWall(left, new Point2D(1, -1), new Point2D(1, 1))
+        .get().getParticlesAfterCollision().get(0);
+    assertEquals(-1, bounced.velocity().getX(), DELTA);
+    assertEquals(0, bounced.velocity().getY(), DELTA);
+  }
+
+  @Test
+  public void particlesHitWallsOfAnyOrientationAndTheirEnds() {
+    // Moving along x towards the wall y = x - 1, which it touches when 0.1 away from it
+    assertEquals(1 - 0.1 * Math.sqrt(2),
+        Collision.wallCollisionTime(0, 0, 1, 0, 0.1, 0, -1, 2, 1), DELTA);
+    // The wall ends at (1, 0.05), right where the particle passes
+    assertEquals(1 - Math.sqrt(0.1 * 0.1 - 0.05 * 0.05),
+        Collision.wallCollisionTime(0, 0, 1, 0, 0.1, 1, 0.05, 1, 1), DELTA);
+
+    final Particle bounced = Collision.withWall(left, new Point2D(0, -1), new Point2D(2, 1))
+        .get().getParticlesAfterCollision().get(0);
+    assertEquals(0, bounced.velocity().getX(), DELTA);
+    assertEquals(1, bounced.velocity().getY(), DELTA);
+  }
+
+  private static Particle particle(final int id, final double x, final double y,
+      final double vx, final double vy, final double radius, final double mass) {
+    return ImmutableParticle.builder()
+        .id(id)
+        .radius(radius)
+        .mass(mass)
+        .position(new Point2D(x, y))
+        .velocity(new Point2D(vx, vy))
+        .build();
+  }
+
+  private static double momentumX(final Particle particle1, final Particle particle2) {
+    return particle1.mass() * particle1.velocity().getX()
+        + particle2.mass() * particle2.velocity().getX();
+  }
+
+  private static double energy(final Particle particle1, final Particle particle2) {
+    return particle1.mass() * Math.pow(particle1.velocity().magnitude(), 2) / 2
+        + particle2.mass() * Math.pow(particle2.velocity().magnitude(), 2) / 2;
+  }
+}
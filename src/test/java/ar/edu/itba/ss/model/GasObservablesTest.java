@@ -0,0 +1,66 @@
+package ar.edu.itba.ss.model;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import org.junit.Test;
+
+public class GasObservablesTest {
+
+  private static final double BIN_WIDTH = 0.5;
+  private static final double DELTA = 1e-12;
+
+  private final Particle particle = particle(1, 1, 0);
+  private final Particle other = particle(2, 0, 2);
+  private final GasObservables observables = new GasObservables(BIN_WIDTH, new double[]{2, 4});
+
+  @Test
+  public void temperatureFollowsVelocityChanges() {
+    observables.reset(Arrays.asList(particle, other));
+    assertEquals(StateEquations.temperature(new HashSet<>(Arrays.asList(particle, other))),
+        observables.temperature(), observables.temperature() * DELTA);
+
+    final Particle faster = particle(1, 3, 0);
+    observables.velocityChanged(0.2, particle, faster);
+
+    assertEquals(StateEquations.temperature(new HashSet<>(Arrays.asList(faster, other))),
+        observables.temperature(), observables.temperature() * DELTA);
+    assertEquals(observables.temperature(), observables.temperature(0), 0);
+  }
+
+  @Test
+  public void pressureAddsTheWallImpulsesOfEachBin() {
+    observables.reset(Arrays.asList(particle, other));
+    observables.wallHit(0.1, 0, particle, particle(1, -1, 0));
+    observables.wallHit(0.2, 1, other, particle(2, 0, -2));
+    observables.wallHit(0.7, 1, other, particle(2, 0, -2));
+
+    assertEquals(2, observables.getBins());
+    assertEquals(2 / (BIN_WIDTH * 2), observables.pressure(0, 0), DELTA);
+    assertEquals(4 / (BIN_WIDTH * 4), observables.pressure(0, 1), DELTA);
+    assertEquals((2 + 4) / (BIN_WIDTH * 6), observables.pressure(0), DELTA);
+    assertEquals(4 / (BIN_WIDTH * 6), observables.pressure(1), DELTA);
+  }
+
+  @Test
+  public void binsGrowWithTime() {
+    observables.reset(Arrays.asList(particle, other));
+    observables.advance(10);
+    observables.wallHit(100, 0, particle, particle(1, -1, 0));
+
+    assertEquals(201, observables.getBins());
+    assertEquals(0, observables.pressure(20), 0);
+    assertEquals(2 / (BIN_WIDTH * 2), observables.pressure(200, 0), DELTA);
+  }
+
+  private static Particle particle(final int id, final double vx, final double vy) {
+    return ImmutableParticle.builder()
+        .id(id)
+        .radius(0.1)
+        .mass(1)
+        .position(Point2D.ZERO)
+        .velocity(new Point2D(vx, vy))
+        .build();
+  }
+}
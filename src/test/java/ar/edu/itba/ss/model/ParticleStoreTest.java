@@ -0,0 +1,64 @@
+package ar.edu.itba.ss.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+
+public class ParticleStoreTest {
+
+  private final List<Particle> particles = Arrays.asList(
+      particle(1, 0.1, 0.2, 1, 0, 0.01, 1),
+      particle(2, 0.3, 0.4, 0, 1, 0.02, 2),
+      particle(3, 0.5, 0.6, -1, 0, 0.03, 3));
+
+  @Test
+  public void viewsFollowTheStoreInPlace() {
+    final ParticleStore store = ParticleStore.of(particles);
+    final List<Particle> view = store.particles();
+
+    assertEquals(particles, view);
+
+    store.getX()[1] = 0.9;
+    store.getVy()[1] = -1;
+
+    assertTrue(view == store.particles());
+    assertEquals(0.9, view.get(1).position().getX(), 0);
+    assertEquals(-1, view.get(1).velocity().getY(), 0);
+  }
+
+  @Test
+  public void reorderMovesEveryValueOfAParticleTogether() {
+    final ParticleStore store = ParticleStore.of(particles);
+    store.getAx()[0] = 5;
+
+    store.reorder(new int[]{2, 0, 1});
+
+    assertEquals(Arrays.asList(particles.get(2), particles.get(0), particles.get(1)),
+        store.particles());
+    assertEquals(5, store.getAx()[1], 0);
+    assertEquals(0, store.getAx()[0], 0);
+  }
+
+  @Test
+  public void reorderKeepsStridedValuesTogether() {
+    final double[] values = {0, 1, 10, 11, 20, 21};
+
+    ParticleStore.reorder(values, new int[]{1, 2, 0}, 3, 2, new double[6]);
+
+    assertEquals(Arrays.toString(new double[]{10, 11, 20, 21, 0, 1}), Arrays.toString(values));
+  }
+
+  private static Particle particle(final int id, final double x, final double y, final double vx,
+      final double vy, final double radius, final double mass) {
+    return ImmutableParticle.builder()
+        .id(id)
+        .position(new Point2D(x, y))
+        .velocity(new Point2D(vx, vy))
+        .radius(radius)
+        .mass(mass)
+        .build();
+  }
+}
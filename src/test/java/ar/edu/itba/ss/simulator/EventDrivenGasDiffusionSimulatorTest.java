@@ -0,0 +1,290 @@
+package ar.edu.itba.ss.simulator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import ar.edu.itba.ss.io.writer.ParticlesWriter;
+import ar.edu.itba.ss.model.Collision;
+import ar.edu.itba.ss.model.Container;
+import ar.edu.itba.ss.model.GasObservables;
+import ar.edu.itba.ss.model.ImmutableParticle;
+import ar.edu.itba.ss.model.Particle;
+import ar.edu.itba.ss.model.Point2D;
+import ar.edu.itba.ss.model.StateEquations;
+import ar.edu.itba.ss.model.criteria.TimeCriteria;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import org.junit.Test;
+
+public class EventDrivenGasDiffusionSimulatorTest {
+
+  private static final double WIDTH = 0.24;
+  private static final double HEIGHT = 0.09;
+  private static final double GAP = 0.02;
+  private static final double RADIUS = 0.0015;
+  private static final double DT = 0.5;
+  private static final double TIME = 20;
+  // Late enough to go through many collisions, early enough for round off not to diverge
+  private static final int COMPARED_COLLISION = 200;
+  private static final double DELTA = 1e-9;
+
+  private final List<Particle> particles = leftChamberParticles(10, 10, 3);
+
+  @Test
+  public void conservesEnergyWithoutOverlaps() {
+    assertConservesEnergyWithoutOverlaps(
+        new EventDrivenGasDiffusionSimulator(particles, WIDTH, HEIGHT, GAP, DT));
+  }
+
+  @Test
+  public void conservesEnergyWithoutOverlapsUsingCells() {
+    assertConservesEnergyWithoutOverlaps(
+        new EventDrivenGasDiffusionSimulator(particles, WIDTH, HEIGHT, GAP, DT, true));
+  }
+
+  @Test
+  public void cellsKeepTheSameTrajectories() {
+    assertSameParticles(
+        collidedParticles(new EventDrivenGasDiffusionSimulator(particles, WIDTH, HEIGHT, GAP, DT)),
+        collidedParticles(
+            new EventDrivenGasDiffusionSimulator(particles, WIDTH, HEIGHT, GAP, DT, true)));
+  }
+
+  @Test
+  public void conservesEnergyWithoutOverlapsUsingLazyAdvance() {
+    assertConservesEnergyWithoutOverlaps(
+        new EventDrivenGasDiffusionSimulator(particles, WIDTH, HEIGHT, GAP, DT, true, true));
+  }
+
+  @Test
+  public void lazyAdvanceKeepsTheSameTrajectories() {
+    assertSameParticles(
+        collidedParticles(new EventDrivenGasDiffusionSimulator(particles, WIDTH, HEIGHT, GAP, DT,
+            true)),
+        collidedParticles(new EventDrivenGasDiffusionSimulator(particles, WIDTH, HEIGHT, GAP, DT,
+            true, true)));
+  }
+
+  @Test
+  public void lazyAdvanceOnlyHandsOutEveryParticleOnTicks() {
+    final int[] states = new int[1];
+    final int[] tests = new int[1];
+    final int[] collisions = new int[1];
+
+    new EventDrivenGasDiffusionSimulator(particles, WIDTH, HEIGHT, GAP, DT, true, true)
+        .simulate((time, particles) -> ++tests[0] > 0 && time > TIME, new ParticlesWriter() {
+          @Override
+          public void write(final double time, final Collection<Particle> particles) {
+            states[0]++;
+          }
+
+          @Override
+          public void write(final double time, final Collision collision) {
+            collisions[0]++;
+            assertTrue(collision.getParticlesAfterCollision().size() <= 2);
+          }
+        });
+
+    assertTrue("Particles never collided", collisions[0] > 0);
+    // The initial state and one per tick, each tick followed by one test of the end
+    assertEquals(states[0], tests[0]);
+  }
+
+  @Test
+  public void observablesKeepTheTemperatureOfTheGas() {
+    final EventDrivenGasDiffusionSimulator simulator = new EventDrivenGasDiffusionSimulator(
+        particles, WIDTH, HEIGHT, GAP, DT, true, true);
+    final double temperature = StateEquations.temperature(new HashSet<>(particles));
+
+    simulator.simulate(new TimeCriteria(TIME), (time, particles) -> {
+    });
+
+    final GasObservables observables = simulator.getObservables();
+    double pressure = 0;
+    assertTrue(observables.getBins() > TIME / DT);
+    for (int bin = 0; bin < observables.getBins(); bin++) {
+      assertEquals(temperature, observables.temperature(bin), temperature * DELTA);
+      assertTrue(observables.pressure(bin) >= 0);
+      pressure += observables.pressure(bin);
+    }
+    assertTrue("Particles never hit a wall", pressure > 0);
+  }
+
+  @Test
+  public void particlesStayInsideAPolygonalContainer() {
+    // Hexagon around the grid of particles in the left chamber
+    final List<Point2D[]> walls = new ArrayList<>();
+    for (int vertex = 0; vertex < 6; vertex++) {
+      walls.add(new Point2D[]{hexagonVertex(vertex), hexagonVertex(vertex + 1)});
+    }
+    final Container container = new Container(walls);
+
+    for (final boolean useCells : new boolean[]{false, true}) {
+      final Set<Particle> last = new EventDrivenGasDiffusionSimulator(particles, container, DT,
+          useCells, false).simulate(new TimeCriteria(TIME), (time, particles) -> {
+        for (final Particle particle : particles) {
+          for (int wall = 0; wall < container.getWalls(); wall++) {
+            assertTrue("Particle " + particle.id() + " crossed wall " + wall,
+                container.distanceToWall(wall, particle.position().getX(),
+                    particle.position().getY()) >= particle.radius() - DELTA);
+          }
+        }
+      });
+
+      assertEquals(kineticEnergy(particles), kineticEnergy(last),
+          kineticEnergy(particles) * DELTA);
+    }
+  }
+
+  @Test
+  public void matchesGasDiffusionSimulator() {
+    assertSameParticles(
+        collidedParticles(new GasDiffusionSimulator(particles, WIDTH, HEIGHT, GAP, DT)),
+        collidedParticles(new EventDrivenGasDiffusionSimulator(particles, WIDTH, HEIGHT, GAP, DT)));
+  }
+
+  private void assertConservesEnergyWithoutOverlaps(final Simulator simulator) {
+    final double energy = kineticEnergy(particles);
+    final int[] collisions = new int[1];
+
+    final Set<Particle> last = simulator.simulate(new TimeCriteria(TIME), new ParticlesWriter() {
+      @Override
+      public void write(final double time, final Collection<Particle> particles) {
+        assertValidState(energy, particles);
+      }
+
+      @Override
+      public void write(final double time, final Collection<Particle> particles,
+          final Collision collision) {
+        collisions[0]++;
+        assertValidState(energy, particles);
+      }
+
+      @Override
+      public void write(final double time, final Collision collision) {
+        collisions[0]++;
+      }
+    });
+
+    assertEquals(particles.size(), last.size());
+    assertValidState(energy, last);
+    assertTrue("Particles never collided", collisions[0] > 0);
+  }
+
+  // Runs are compared on the particles coming out of the same collision. The full state can't
+  // be compared at the end, as the run ends on the first event after the time limit and each
+  // simulator schedules different events.
+  private static List<Particle> collidedParticles(final Simulator simulator) {
+    final List<Particle> collided = new ArrayList<>();
+    final int[] collisions = new int[1];
+
+    simulator.simulate(new TimeCriteria(TIME), new ParticlesWriter() {
+      @Override
+      public void write(final double time, final Collection<Particle> particles) {
+      }
+
+      @Override
+      public void write(final double time, final Collection<Particle> particles,
+          final Collision collision) {
+        write(time, collision);
+      }
+
+      @Override
+      public void write(final double time, final Collision collision) {
+        if (++collisions[0] == COMPARED_COLLISION) {
+          collided.addAll(collision.getParticlesAfterCollision());
+        }
+      }
+    });
+
+    assertTrue("Not enough collisions", collisions[0] >= COMPARED_COLLISION);
+    return collided;
+  }
+
+  private static void assertValidState(final double energy,
+      final Collection<Particle> particles) {
+    assertEquals(energy, kineticEnergy(particles), energy * DELTA);
+
+    final List<Particle> state = new ArrayList<>(particles);
+    for (int i = 0; i < state.size(); i++) {
+      final Particle particle = state.get(i);
+      final double x = particle.position().getX();
+      final double y = particle.position().getY();
+
+      assertTrue("Particle out of the box", x >= RADIUS - DELTA && x <= WIDTH - RADIUS + DELTA
+          && y >= RADIUS - DELTA && y <= HEIGHT - RADIUS + DELTA);
+
+      for (int j = i + 1; j < state.size(); j++) {
+        final Particle other = state.get(j);
+
+        assertTrue("Particles " + particle.id() + " and " + other.id() + " overlap",
+            particle.position().distance(other.position())
+                >= particle.radius() + other.radius() - DELTA);
+      }
+    }
+  }
+
+  private static void assertSameParticles(final Collection<Particle> expected,
+      final Collection<Particle> actual) {
+    final Map<Integer, Particle> actualById = new HashMap<>();
+    for (final Particle particle : actual) {
+      actualById.put(particle.id(), particle);
+    }
+
+    assertEquals(expected.size(), actualById.size());
+    for (final Particle particle : expected) {
+      final Particle other = actualById.get(particle.id());
+
+      assertEquals(0, particle.position().distance(other.position()), DELTA);
+      assertEquals(0, particle.velocity().distance(other.velocity()), DELTA);
+    }
+  }
+
+  private static Point2D hexagonVertex(final int vertex) {
+    final double angle = vertex * Math.PI / 3;
+
+    return new Point2D(WIDTH / 4 + WIDTH / 4 * 1.5 * Math.cos(angle),
+        HEIGHT / 2 + WIDTH / 4 * 1.5 * Math.sin(angle));
+  }
+
+  private static double kineticEnergy(final Collection<Particle> particles) {
+    double energy = 0;
+
+    for (final Particle particle : particles) {
+      energy += particle.mass() * Math.pow(particle.velocity().magnitude(), 2) / 2;
+    }
+
+    return energy;
+  }
+
+  // A regular grid in the left chamber, moving in random directions with the same speed
+  private static List<Particle> leftChamberParticles(final int cols, final int rows,
+      final long seed) {
+    final Random random = new Random(seed);
+    final List<Particle> particles = new ArrayList<>(cols * rows);
+    final double spacingX = (WIDTH / 2) / (cols + 1);
+    final double spacingY = HEIGHT / (rows + 1);
+
+    for (int col = 0; col < cols; col++) {
+      for (int row = 0; row < rows; row++) {
+        final double angle = random.nextDouble() * 2 * Math.PI;
+
+        particles.add(ImmutableParticle.builder()
+            .id(col * rows + row + 1)
+            .radius(RADIUS)
+            .mass(1)
+            .position(new Point2D((col + 1) * spacingX, (row + 1) * spacingY))
+            .velocity(new Point2D(0.01 * Math.cos(angle), 0.01 * Math.sin(angle)))
+            .build());
+      }
+    }
+
+    return particles;
+  }
+}
@@ -0,0 +1,133 @@
+package ar.edu.itba.ss.simulator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import ar.edu.itba.ss.io.writer.ParticlesWriter;
+import ar.edu.itba.ss.method.force.ContactForceFunction;
+import ar.edu.itba.ss.method.movement.BatchBeemanMovementFunction;
+import ar.edu.itba.ss.method.movement.VelocityVerletStepIntegrator;
+import ar.edu.itba.ss.model.ImmutableParticle;
+import ar.edu.itba.ss.model.Neighbour;
+import ar.edu.itba.ss.model.Particle;
+import ar.edu.itba.ss.model.Point2D;
+import ar.edu.itba.ss.model.criteria.Criteria;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.Test;
+
+public class GranularMediaSimulatorTest {
+
+  private static final double WIDTH = 1;
+  private static final double HEIGHT = 1;
+  private static final double GAP = 0.15;
+  private static final double RADIUS = 0.02;
+  private static final double DT = 1e-4;
+  private static final double TIME = 1;
+
+  private final ContactForceFunction forceFunction = new ContactForceFunction(1e4, 2e4, true);
+  private final List<Particle> particles = grid(10, 6, 0.08);
+
+  @Test
+  public void flowedParticlesComeBackAtTheTop() {
+    assertFlowedParticlesComeBackAtTheTop(new GranularMediaSimulator(particles, DT, 100, WIDTH,
+        HEIGHT, GAP, forceFunction, new BatchBeemanMovementFunction(forceFunction)));
+  }
+
+  @Test
+  public void flowedParticlesComeBackAtTheTopInTwoPhases() {
+    assertFlowedParticlesComeBackAtTheTop(new GranularMediaSimulator(particles, DT, 100, WIDTH,
+        HEIGHT, GAP, forceFunction, new VelocityVerletStepIntegrator()));
+  }
+
+  @Test
+  public void writersSeeTheWallsAsNeighbours() {
+    assertWritersSeeTheWallsAsNeighbours(new GranularMediaSimulator(particles, DT, 10, WIDTH,
+        HEIGHT, GAP, forceFunction, new BatchBeemanMovementFunction(forceFunction)));
+  }
+
+  @Test
+  public void writersSeeTheWallsAsNeighboursInTwoPhases() {
+    assertWritersSeeTheWallsAsNeighbours(new GranularMediaSimulator(particles, DT, 10, WIDTH,
+        HEIGHT, GAP, forceFunction, new VelocityVerletStepIntegrator()));
+  }
+
+  private void assertFlowedParticlesComeBackAtTheTop(final GranularMediaSimulator simulator) {
+    final int[] flowed = {0};
+
+    final List<Particle> last = simulator.simulate(new Criteria() {
+      @Override
+      public boolean test(final double time, final Collection<Particle> particles) {
+        return time > TIME;
+      }
+
+      @Override
+      public boolean test(final double time, final Collection<Particle> particles,
+          final int particlesFlowed) {
+        flowed[0] += particlesFlowed;
+        return test(time, particles);
+      }
+    }, (time, particles) -> {
+    });
+
+    assertFalse(simulator.getFlowTimes().isEmpty());
+    assertEquals(simulator.getFlowTimes().size(), flowed[0]);
+    assertEquals(particles.size(), last.size());
+    for (final Particle particle : last) {
+      assertTrue(particle.position().getX() >= 0 && particle.position().getX() <= WIDTH);
+      assertTrue(particle.position().getY() > 0 && particle.position().getY() <= HEIGHT * 1.1);
+    }
+  }
+
+  private void assertWritersSeeTheWallsAsNeighbours(final GranularMediaSimulator simulator) {
+    final List<Neighbour> walls = new ArrayList<>();
+
+    simulator.simulate((time, particles) -> time > TIME, new ParticlesWriter() {
+      @Override
+      public void write(final double time, final Collection<Particle> particles) {
+      }
+
+      @Override
+      public void write(final double time, final Map<Particle, Set<Neighbour>> neighbours) {
+        for (final Set<Neighbour> particleNeighbours : neighbours.values()) {
+          for (final Neighbour neighbour : particleNeighbours) {
+            if (neighbour.getNeighbourParticle().id() < 0) {
+              walls.add(neighbour);
+            }
+          }
+        }
+      }
+    });
+
+    assertFalse(walls.isEmpty());
+    for (final Neighbour wall : walls) {
+      final Point2D position = wall.getNeighbourParticle().position();
+
+      assertTrue(wall.getDistance() < 0);
+      assertTrue(position.getX() == 0 || position.getX() == WIDTH
+          || position.getY() == HEIGHT * 1.1 - HEIGHT);
+    }
+  }
+
+  // Particles at rest in the upper half of the box, some of them over the gap
+  private static List<Particle> grid(final int cols, final int rows, final double spacing) {
+    final List<Particle> particles = new ArrayList<>(rows * cols);
+
+    for (int row = 0; row < rows; row++) {
+      for (int col = 0; col < cols; col++) {
+        particles.add(ImmutableParticle.builder()
+            .id(row * cols + col + 1)
+            .radius(RADIUS)
+            .mass(0.01)
+            .position(new Point2D(0.14 + col * spacing, 0.55 + row * spacing))
+            .build());
+      }
+    }
+
+    return particles;
+  }
+}
@@ -0,0 +1,154 @@
+package ar.edu.itba.ss.simulator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import ar.edu.itba.ss.io.writer.ParticlesWriter;
+import ar.edu.itba.ss.method.force.LennardJonesForceFunction;
+import ar.edu.itba.ss.method.movement.BatchBeemanMovementFunction;
+import ar.edu.itba.ss.method.movement.BeemanMovementFunction;
+import ar.edu.itba.ss.method.movement.MovementFunction;
+import ar.edu.itba.ss.method.neigbour.BruteForceMethod;
+import ar.edu.itba.ss.method.neigbour.IndexedCellIndexMethod;
+import ar.edu.itba.ss.method.neigbour.SpaceFillingCurveReordering;
+import ar.edu.itba.ss.method.neigbour.SpaceFillingCurveReordering.Curve;
+import ar.edu.itba.ss.method.neigbour.VerletListMethod;
+import ar.edu.itba.ss.model.ImmutableParticle;
+import ar.edu.itba.ss.model.Neighbour;
+import ar.edu.itba.ss.model.Particle;
+import ar.edu.itba.ss.model.Point2D;
+import ar.edu.itba.ss.model.criteria.TimeCriteria;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import org.junit.Test;
+
+public class LennardJonesGasSimulatorTest {
+
+  private static final double WIDTH = 100;
+  private static final double HEIGHT = 50;
+  private static final double GAP = 10;
+  private static final double EPSILON = 2;
+  private static final double RM = 1;
+  private static final double RC = 5;
+  private static final double DT = 1e-3;
+  // Short enough for the block of particles not to reach the walls
+  private static final double TIME = 3;
+  private static final ParticlesWriter NO_WRITER = (time, particles) -> {
+  };
+
+  private final List<Particle> particles = block(8, 8, 2.5, 5);
+
+  @Test
+  public void movesLikeTheMovementFunctionsAwayFromTheWalls() {
+    final int steps = 1000;
+    final int[] tests = {0};
+    final Set<Particle> last = simulator(null)
+        .simulate((time, particles) -> ++tests[0] > steps, NO_WRITER);
+
+    // The per particle path the simulator used to take
+    final LennardJonesForceFunction forceFunction = new LennardJonesForceFunction(EPSILON, RM);
+    final Map<Integer, MovementFunction> movementFunctions = new HashMap<>();
+    for (final Particle particle : particles) {
+      movementFunctions.put(particle.id(), new BeemanMovementFunction(forceFunction, Point2D.ZERO));
+    }
+
+    List<Particle> expected = particles;
+    for (int step = 0; step < steps; step++) {
+      final Map<Particle, Set<Neighbour>> neighbours = new BruteForceMethod()
+          .apply(expected, RC);
+      final List<Particle> next = new ArrayList<>(expected.size());
+
+      for (final Particle particle : expected) {
+        next.add(movementFunctions.get(particle.id())
+            .move(particle, neighbours.get(particle), DT));
+      }
+      expected = next;
+    }
+
+    assertSameParticles(expected, last);
+  }
+
+  @Test
+  public void reorderingKeepsTheSameTrajectories() {
+    final Set<Particle> expected = simulator(null).simulate(new TimeCriteria(TIME), NO_WRITER);
+    final Set<Particle> reordered = simulator(
+        new SpaceFillingCurveReordering(WIDTH, HEIGHT, Curve.HILBERT, 10))
+        .simulate(new TimeCriteria(TIME), NO_WRITER);
+
+    assertSameParticles(expected, reordered);
+  }
+
+  @Test
+  public void wallsKeepTheParticlesInTheBox() {
+    // Particles leave the block fast enough to hit the walls many times
+    final List<Particle> fast = new ArrayList<>();
+    for (final Particle particle : particles) {
+      fast.add(ImmutableParticle.builder().from(particle)
+          .velocity(particle.velocity().multiply(20))
+          .build());
+    }
+
+    final Set<Particle> last = new LennardJonesGasSimulator(fast, WIDTH, HEIGHT, GAP, DT, 100, RC,
+        new LennardJonesForceFunction(EPSILON, RM),
+        new BatchBeemanMovementFunction(new LennardJonesForceFunction(EPSILON, RM)))
+        .simulate(new TimeCriteria(TIME), NO_WRITER);
+
+    for (final Particle particle : last) {
+      assertTrue(particle.position().getX() > 0 && particle.position().getX() < WIDTH);
+      assertTrue(particle.position().getY() > 0 && particle.position().getY() < HEIGHT);
+    }
+  }
+
+  private LennardJonesGasSimulator simulator(final SpaceFillingCurveReordering reordering) {
+    final LennardJonesForceFunction forceFunction = new LennardJonesForceFunction(EPSILON, RM);
+
+    return new LennardJonesGasSimulator(particles, WIDTH, HEIGHT, GAP, DT, 100, RC,
+        forceFunction, new BatchBeemanMovementFunction(forceFunction),
+        new VerletListMethod(new IndexedCellIndexMethod(WIDTH, HEIGHT, false), RC / 10),
+        reordering);
+  }
+
+  private static void assertSameParticles(final Collection<Particle> expected,
+      final Collection<Particle> actual) {
+    final Map<Integer, Particle> byId = new HashMap<>();
+    for (final Particle particle : actual) {
+      byId.put(particle.id(), particle);
+    }
+
+    assertEquals(expected.size(), byId.size());
+    for (final Particle particle : expected) {
+      final Particle other = byId.get(particle.id());
+      assertEquals(particle.position().getX(), other.position().getX(), 1e-6);
+      assertEquals(particle.position().getY(), other.position().getY(), 1e-6);
+      assertEquals(particle.velocity().getX(), other.velocity().getX(), 1e-6);
+      assertEquals(particle.velocity().getY(), other.velocity().getY(), 1e-6);
+    }
+  }
+
+  // A square block in the middle of the left chamber, moving in random directions
+  private static List<Particle> block(final int rows, final int cols, final double spacing,
+      final long seed) {
+    final Random random = new Random(seed);
+    final List<Particle> particles = new ArrayList<>(rows * cols);
+    final double startX = WIDTH / 4 - (cols - 1) * spacing / 2;
+    final double startY = HEIGHT / 2 - (rows - 1) * spacing / 2;
+
+    for (int row = 0; row < rows; row++) {
+      for (int col = 0; col < cols; col++) {
+        final double angle = random.nextDouble() * 2 * Math.PI;
+        particles.add(ImmutableParticle.builder()
+            .id(row * cols + col + 1)
+            .position(new Point2D(startX + col * spacing, startY + row * spacing))
+            .velocity(new Point2D(Math.cos(angle), Math.sin(angle)))
+            .build());
+      }
+    }
+
+    return particles;
+  }
+}